@@ -0,0 +1,62 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.service.AdminService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admin system stats across every user's loans, up to a million loans
+ * spread over lenders of 50,000 loans each. Seeding the largest size takes
+ * a few minutes and needs a heap of a couple of gigabytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AdminStatsBenchmark {
+
+    private static final int LOANS_PER_LENDER = 50_000;
+
+    @Param({"10000", "1000000"})
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private AdminService adminService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        adminService = context.getBean(AdminService.class);
+        for (int seeded = 0, lender = 0; seeded < loans; seeded += LOANS_PER_LENDER, lender++) {
+            BenchmarkApp.seedLoans(context, BenchmarkApp.createUser(context, "Lender " + lender),
+                    Math.min(LOANS_PER_LENDER, loans - seeded));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> systemStats() {
+        return adminService.getSystemStats();
+    }
+}
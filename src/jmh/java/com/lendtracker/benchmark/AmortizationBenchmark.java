@@ -0,0 +1,41 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.service.AmortizationCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/** Schedule generation at the 10,000-period ceiling, uncached. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmortizationBenchmark {
+
+    @Param({"SIMPLE", "COMPOUND", "REDUCING_BALANCE"})
+    private AmortizationCalculator.Method method;
+
+    private final BigDecimal principal = new BigDecimal("500000.00");
+    private final LocalDate start = LocalDate.of(2024, 1, 31);
+
+    @Benchmark
+    public AmortizationSchedule maxPeriods() {
+        return AmortizationCalculator.compute(1L, principal, 12.0, start, Loan.InterestFrequency.WEEKLY,
+                method, AmortizationCalculator.MAX_PERIODS);
+    }
+}
@@ -0,0 +1,100 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.LendTrackerApplication;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.UserRepository;
+import com.lendtracker.service.LoanImportService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Boots the full application against a private in-memory H2 database for
+ * benchmarks that go through Spring beans and the persistence layer, and
+ * seeds synthetic portfolios through the bulk import path.
+ */
+final class BenchmarkApp {
+
+    private static final String[] FREQUENCIES = {"MONTHLY", "MONTHLY", "QUARTERLY", "YEARLY", "WEEKLY", "DAILY"};
+
+    private BenchmarkApp() {
+    }
+
+    /** Start the app; extra arguments use --key=value and override the defaults below. */
+    static ConfigurableApplicationContext start(String... overrides) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--server.port=0",
+                "--app.email.outbox.enabled=false",
+                "--app.loans.bulk.max-rows=1000000",
+                "--logging.level.root=WARN",
+                "--logging.level.com.lendtracker=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--spring.main.banner-mode=off"));
+        args.addAll(Arrays.asList(overrides));
+        return SpringApplication.run(LendTrackerApplication.class, args.toArray(String[]::new));
+    }
+
+    static User createUser(ConfigurableApplicationContext context, String name) {
+        return context.getBean(UserRepository.class).save(User.builder()
+                .name(name)
+                .email(name.toLowerCase().replace(' ', '.') + "-" + UUID.randomUUID() + "@bench.local")
+                .password("not-a-real-hash")
+                .emailVerified(true)
+                .build());
+    }
+
+    /** Import a reproducible portfolio of the given size for the user. */
+    static void seedLoans(ConfigurableApplicationContext context, User user, int count) {
+        try {
+            context.getBean(LoanImportService.class).importLoans(user,
+                    new ByteArrayInputStream(portfolioCsv(count)), LoanImportService.Format.CSV);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bulk import CSV for a synthetic portfolio: about fifty loans per
+     * borrower, a mix of frequencies, lend dates over the past three years
+     * and some partial repayments. The same count always yields the same rows.
+     */
+    static byte[] portfolioCsv(int count) {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        StringBuilder csv = new StringBuilder(count * 120);
+        csv.append("borrowerName,borrowerPhone,principalAmount,interestRate,lendDate,dueDate,interestFrequency,")
+                .append("totalInterestReceived,totalPrincipalReceived,status\n");
+        for (int i = 0; i < count; i++) {
+            int principal = 1_000 + random.nextInt(500) * 1_000;
+            LocalDate lend = today.minusDays(random.nextInt(3 * 365));
+            boolean closed = random.nextInt(5) == 0;
+            csv.append("Borrower ").append(random.nextInt(Math.max(10, count / 50))).append(',')
+                    .append(9_000_000_000L + random.nextInt(1_000_000)).append(',')
+                    .append(principal).append(',')
+                    .append(6 + random.nextInt(30)).append(".5,")
+                    .append(lend).append(',')
+                    .append(lend.plusMonths(6 + random.nextInt(36))).append(',')
+                    .append(FREQUENCIES[random.nextInt(FREQUENCIES.length)]).append(',')
+                    .append(random.nextInt(principal / 10)).append(',')
+                    .append(closed ? principal : random.nextInt(principal / 2)).append(',')
+                    .append(closed ? "CLOSED" : "ACTIVE").append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
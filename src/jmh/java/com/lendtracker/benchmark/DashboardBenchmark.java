@@ -0,0 +1,69 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.entity.PortfolioSummary;
+import com.lendtracker.entity.User;
+import com.lendtracker.service.LoanService;
+import com.lendtracker.service.PortfolioSummaryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard latency against portfolio size. getDashboardStats reads the
+ * maintained summary plus the top-borrowers query; rebuildSummary is the full
+ * aggregation the nightly reconcile runs per user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private PortfolioSummaryService portfolioSummaryService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        loanService = context.getBean(LoanService.class);
+        portfolioSummaryService = context.getBean(PortfolioSummaryService.class);
+        user = BenchmarkApp.createUser(context, "Dashboard User");
+        BenchmarkApp.seedLoans(context, user, loans);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> dashboardStats() {
+        return loanService.getDashboardStats(user);
+    }
+
+    @Benchmark
+    public PortfolioSummary rebuildSummary() {
+        return portfolioSummaryService.rebuild(user);
+    }
+}
@@ -0,0 +1,152 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.service.EmailTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Email body rendering from the compiled templates, with the values EmailService
+ * passes. newLoanEmail formats the amount and rate as EmailService does, so it
+ * compares directly with newLoanEmailLegacy, the String.format text block and
+ * per-call NumberFormat it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+    private static final ThreadLocal<NumberFormat> CURRENCY_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(new Locale("en", "IN")));
+
+    private EmailTemplates templates;
+    private LegacyNewLoanEmail legacy;
+
+    private final String userName = "Bench Lender";
+    private final String borrowerName = "Ravi <Kumar> & Sons";
+    private final BigDecimal amount = new BigDecimal("250000.00");
+    private final double interestRate = 18.5;
+
+    private final Map<String, String> loanOverdue = Map.of(
+            "userName", "Bench Lender",
+            "borrowerName", "Ravi Kumar",
+            "state", "Delinquent",
+            "dueDate", "12 Mar 2026",
+            "daysOverdue", "42",
+            "outstanding", "₹1,20,000.00");
+
+    @Setup
+    public void setUp() {
+        templates = new EmailTemplates();
+        ReflectionTestUtils.setField(templates, "appName", "LendTracker");
+        ReflectionTestUtils.setField(templates, "baseUrl", "http://localhost:5173");
+        ReflectionTestUtils.invokeMethod(templates, "load");
+        legacy = new LegacyNewLoanEmail("LendTracker", "http://localhost:5173");
+    }
+
+    @Benchmark
+    public String newLoanEmail() {
+        return templates.render("new-loan", Map.of(
+                "userName", userName,
+                "borrowerName", borrowerName,
+                "amount", CURRENCY_FORMAT.get().format(amount),
+                "interestRate", String.format("%.1f", interestRate)));
+    }
+
+    @Benchmark
+    public String newLoanEmailLegacy() {
+        return legacy.render(userName, borrowerName, amount, interestRate);
+    }
+
+    @Benchmark
+    public String loanOverdueEmail() {
+        return templates.render("loan-overdue", loanOverdue);
+    }
+
+    /** The new-loan email as EmailService rendered it before the compiled templates; benchmark baseline only. */
+    static final class LegacyNewLoanEmail {
+        private final String appName;
+        private final String baseUrl;
+
+        LegacyNewLoanEmail(String appName, String baseUrl) {
+            this.appName = appName;
+            this.baseUrl = baseUrl;
+        }
+
+        private String formatCurrency(BigDecimal amount) {
+            NumberFormat formatter = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
+            return formatter.format(amount);
+        }
+
+        String render(String userName, String borrowerName, BigDecimal amount, double interestRate) {
+            return """
+                <!DOCTYPE html>
+                <html>
+                <head><meta charset="UTF-8"></head>
+                <body style="font-family: 'Segoe UI', Tahoma, sans-serif; background-color: #f7f7f7; margin: 0; padding: 20px;">
+                    <div style="max-width: 500px; margin: 0 auto; background: #ffffff; border-radius: 12px; overflow: hidden; box-shadow: 0 2px 10px rgba(0,0,0,0.1);">
+                        <div style="background: #1CC29F; padding: 25px; text-align: center;">
+                            <h1 style="color: white; margin: 0; font-size: 24px;">%s</h1>
+                        </div>
+                        <div style="padding: 30px;">
+                            <div style="text-align: center; margin-bottom: 20px;">
+                                <span style="font-size: 48px;">💰</span>
+                            </div>
+                            <h2 style="color: #333; margin: 0 0 15px 0; font-size: 20px; text-align: center;">New Loan Added</h2>
+                        
+                            <p style="color: #666; font-size: 15px; margin: 0 0 20px 0;">Hi <strong>%s</strong>,</p>
+                        
+                            <p style="color: #666; font-size: 15px; margin: 0 0 20px 0;">
+                                A new loan has been recorded in your LendTracker account:
+                            </p>
+                        
+                            <div style="background: #f8f9fa; border-radius: 10px; padding: 20px; margin: 20px 0;">
+                                <table style="width: 100%%; border-collapse: collapse;">
+                                    <tr>
+                                        <td style="padding: 8px 0; color: #666; font-size: 14px;">Borrower</td>
+                                        <td style="padding: 8px 0; color: #333; font-size: 14px; text-align: right; font-weight: 600;">%s</td>
+                                    </tr>
+                                    <tr>
+                                        <td style="padding: 8px 0; color: #666; font-size: 14px;">Amount</td>
+                                        <td style="padding: 8px 0; color: #1CC29F; font-size: 18px; text-align: right; font-weight: 700;">%s</td>
+                                    </tr>
+                                    <tr>
+                                        <td style="padding: 8px 0; color: #666; font-size: 14px;">Interest Rate</td>
+                                        <td style="padding: 8px 0; color: #333; font-size: 14px; text-align: right; font-weight: 600;">%.1f%% p.a.</td>
+                                    </tr>
+                                </table>
+                            </div>
+                        
+                            <div style="text-align: center; margin: 25px 0;">
+                                <a href="%s" style="display: inline-block; background: #1CC29F; color: white; text-decoration: none; padding: 12px 30px; border-radius: 8px; font-weight: 600; font-size: 14px;">
+                                    View in LendTracker
+                                </a>
+                            </div>
+                        </div>
+                        <div style="background: #f8f8f8; padding: 15px; text-align: center; border-top: 1px solid #eee;">
+                            <p style="color: #999; font-size: 12px; margin: 0;">© 2026 %s</p>
+                        </div>
+                    </div>
+                </body>
+                </html>
+                """.formatted(appName, userName, borrowerName, formatCurrency(amount), interestRate, baseUrl, appName);
+        }
+    }
+}
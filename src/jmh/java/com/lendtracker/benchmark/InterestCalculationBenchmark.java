@@ -0,0 +1,54 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.dto.InterestCalculation;
+import com.lendtracker.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/** LoanService.calculateInterest, the calculator endpoint's whole request path below the controller. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterestCalculationBenchmark {
+
+    @Param({"MONTHLY", "DAILY", "YEARLY"})
+    private String frequency;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private final BigDecimal principal = new BigDecimal("250000.00");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        loanService = context.getBean(LoanService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public InterestCalculation calculateInterest() {
+        return loanService.calculateInterest(principal, 18.5, frequency, 365);
+    }
+}
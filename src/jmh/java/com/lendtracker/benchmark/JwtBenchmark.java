@@ -0,0 +1,67 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and per-request validation. validateCached hits the verified
+ * token cache as repeat requests do; validateUncached runs with a zero TTL so
+ * every call verifies the signature, as for a first request. The whole
+ * filter, principal lookup included, is measured by JwtFilterBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil verifyingJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(300);
+        verifyingJwtUtil = jwtUtil(0);
+        token = cachingJwtUtil.generateToken(42L, "lender@example.com", "Bench Lender");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken(42L, "lender@example.com", "Bench Lender");
+    }
+
+    @Benchmark
+    public boolean validateCached() {
+        return cachingJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateUncached() {
+        return verifyingJwtUtil.validateToken(token);
+    }
+
+    private static JwtUtil jwtUtil(long ttlSeconds) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-key-that-is-at-least-256-bits-long-for-hs256");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 10_000);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
@@ -0,0 +1,91 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.entity.User;
+import com.lendtracker.security.JwtAuthenticationFilter;
+import com.lendtracker.security.JwtUtil;
+import com.lendtracker.security.UserPrincipalCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full per-request authentication cost of the JWT filter: token parse
+ * and verification, principal lookup and the security context set-up.
+ * authenticate is a repeat request with the token and principal caches
+ * warm; authenticatePrincipalMiss drops the cached principal first, so each
+ * call also loads the user row as a request after the cache TTL would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private UserPrincipalCache userPrincipalCache;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        userPrincipalCache = context.getBean(UserPrincipalCache.class);
+        User user = BenchmarkApp.createUser(context, "Filter User");
+        userId = user.getId();
+        String token = context.getBean(JwtUtil.class).generateToken(userId, user.getEmail(), user.getName());
+        request = new MockHttpServletRequest("GET", "/api/loans");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        return filterOnce();
+    }
+
+    @Benchmark
+    public Authentication authenticatePrincipalMiss() throws ServletException, IOException {
+        userPrincipalCache.invalidate(userId);
+        return filterOnce();
+    }
+
+    private Authentication filterOnce() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
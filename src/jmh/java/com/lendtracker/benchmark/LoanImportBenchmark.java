@@ -0,0 +1,63 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.dto.BulkImportResult;
+import com.lendtracker.entity.User;
+import com.lendtracker.service.LoanImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** One bulk CSV import per invocation, each into a fresh user. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoanImportBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private LoanImportService loanImportService;
+    private byte[] csv;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        loanImportService = context.getBean(LoanImportService.class);
+        csv = BenchmarkApp.portfolioCsv(rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void newUser() {
+        user = BenchmarkApp.createUser(context, "Import User");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkImportResult importCsv() throws IOException {
+        return loanImportService.importLoans(user, new ByteArrayInputStream(csv), LoanImportService.Format.CSV);
+    }
+}
@@ -0,0 +1,101 @@
+package com.lendtracker.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendtracker.dto.CursorPage;
+import com.lendtracker.dto.LoanResponse;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The loan list read and serialized to JSON, as LoanResponse projections
+ * (what /api/loans serves) against managed entities (what it used to serve),
+ * plus one keyset page of a borrower search and the filter counts (one
+ * grouped query for both breakdowns). The search index budget is
+ * raised to the portfolio size so the 100k run measures the trigram index
+ * rather than the LIKE fallback. Run with -prof gc for the allocation per
+ * request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanListBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int loans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanRepository loanRepository;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate readOnly;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("--app.search.max-indexed-loans=" + loans);
+        loanService = context.getBean(LoanService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        user = BenchmarkApp.createUser(context, "List User");
+        BenchmarkApp.seedLoans(context, user, loans);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] projections() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanService.getAllLoans(user));
+    }
+
+    @Benchmark
+    public byte[] entities() {
+        return readOnly.execute(status -> {
+            try {
+                return objectMapper.writeValueAsBytes(loanRepository.findByUserOrderByCreatedAtDesc(user));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Benchmark
+    public CursorPage<LoanResponse> searchPage() {
+        return loanService.searchLoans(user,
+                loanService.buildFilter("Borrower 1", "ACTIVE", null, null, null, null, null, null, null),
+                null, 50);
+    }
+
+    @Benchmark
+    public Map<String, Object> filterCounts() {
+        return loanService.getFilterCounts(user);
+    }
+}
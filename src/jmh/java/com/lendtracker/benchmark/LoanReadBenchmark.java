@@ -0,0 +1,88 @@
+package com.lendtracker.benchmark;
+
+import com.lendtracker.dto.PaymentHistoryResponse;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-loan and payment-history reads with the Hibernate second-level and
+ * query caches switched on and off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanReadBenchmark {
+
+    private static final int LOANS = 1_000;
+    private static final int LOANS_WITH_PAYMENTS = 200;
+    private static final int PAYMENTS_PER_LOAN = 5;
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private User user;
+    private long[] loanIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start(
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+        loanService = context.getBean(LoanService.class);
+        user = BenchmarkApp.createUser(context, "Read User");
+        BenchmarkApp.seedLoans(context, user, LOANS);
+
+        List<Loan> active = context.getBean(LoanRepository.class).findByUserAndStatus(user, Loan.LoanStatus.ACTIVE);
+        loanIds = active.stream().limit(LOANS_WITH_PAYMENTS).mapToLong(Loan::getId).toArray();
+        for (long id : loanIds) {
+            for (int i = 0; i < PAYMENTS_PER_LOAN; i++) {
+                loanService.recordInterestReceived(id, new BigDecimal("10.00"), user);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan loanById() {
+        return loanService.getLoanById(randomLoanId(), user);
+    }
+
+    @Benchmark
+    public List<PaymentHistoryResponse> paymentHistory() {
+        return loanService.getPaymentHistory(randomLoanId(), user);
+    }
+
+    private long randomLoanId() {
+        return loanIds[ThreadLocalRandom.current().nextInt(loanIds.length)];
+    }
+}
@@ -1,9 +1,11 @@
 package com.lendtracker.controller;
 
+import com.lendtracker.dto.CursorPage;
 import com.lendtracker.entity.User;
 import com.lendtracker.service.AdminService;
 import com.lendtracker.service.AuthService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -30,10 +32,23 @@ public class AdminController {
 
     // ==================== USER MANAGEMENT ====================
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     @GetMapping("/users")
-    public ResponseEntity<List<Map<String, Object>>> getAllUsers(Authentication authentication) {
+    public ResponseEntity<List<Map<String, Object>>> getAllUsers(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            Authentication authentication) {
         checkAdminAccess(authentication);
-        return ResponseEntity.ok(adminService.getAllUsers());
+        if (page == null) {
+            return ResponseEntity.ok(adminService.getAllUsers());
+        }
+        Page<Map<String, Object>> users = adminService.getUsers(page, size, sort, direction);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(users.getTotalElements()))
+                .body(users.getContent());
     }
 
     @GetMapping("/users/{userId}")
@@ -84,9 +99,15 @@ public class AdminController {
     @GetMapping("/activity")
     public ResponseEntity<List<Map<String, Object>>> getRecentActivity(
             @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
         checkAdminAccess(authentication);
-        return ResponseEntity.ok(adminService.getRecentActivity(limit));
+        CursorPage<Map<String, Object>> page = adminService.getRecentActivity(cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(LoanController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     // ==================== CHECK ADMIN STATUS ====================
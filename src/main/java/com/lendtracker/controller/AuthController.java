@@ -4,7 +4,9 @@ import com.lendtracker.dto.AuthRequest;
 import com.lendtracker.dto.AuthResponse;
 import com.lendtracker.dto.RegisterRequest;
 import com.lendtracker.entity.User;
+import com.lendtracker.security.AuthRateLimiter;
 import com.lendtracker.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +21,7 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final AuthRateLimiter authRateLimiter;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -38,7 +41,9 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request,
+                                              HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.Scope.LOGIN, httpRequest.getRemoteAddr(), request.getEmail());
         AuthResponse response = authService.login(request);
         
         // If email not verified, return OK with verification needed message
@@ -59,9 +64,11 @@ public class AuthController {
     // ============================================
 
     @PostMapping("/verify-email")
-    public ResponseEntity<AuthResponse> verifyEmail(@RequestBody Map<String, String> request) {
+    public ResponseEntity<AuthResponse> verifyEmail(@RequestBody Map<String, String> request,
+                                                    HttpServletRequest httpRequest) {
         String email = request.get("email");
         String otp = request.get("otp");
+        authRateLimiter.check(AuthRateLimiter.Scope.OTP, httpRequest.getRemoteAddr(), email);
         
         if (email == null || email.isBlank()) {
             return ResponseEntity.badRequest().body(AuthResponse.error("Email is required"));
@@ -81,10 +88,12 @@ public class AuthController {
     }
 
     @PostMapping("/send-verification-otp")
-    public ResponseEntity<AuthResponse> sendVerificationOtp(@AuthenticationPrincipal User user) {
+    public ResponseEntity<AuthResponse> sendVerificationOtp(@AuthenticationPrincipal User user,
+                                                            HttpServletRequest httpRequest) {
         if (user == null) {
             return ResponseEntity.status(401).body(AuthResponse.error("Not authenticated"));
         }
+        authRateLimiter.check(AuthRateLimiter.Scope.OTP, httpRequest.getRemoteAddr(), user.getEmail());
         
         AuthResponse response = authService.sendVerificationOtp(user.getEmail());
         
@@ -119,22 +128,12 @@ public class AuthController {
             return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
         }
 
-        if (updates.containsKey("name") && updates.get("name") != null && !updates.get("name").isBlank()) {
-            user.setName(updates.get("name"));
-        }
-        if (updates.containsKey("phone")) {
-            user.setPhone(updates.get("phone"));
-        }
-        if (updates.containsKey("profilePhoto")) {
-            user.setProfilePhoto(updates.get("profilePhoto"));
-        }
-
-        authService.updateUser(user);
+        User updated = authService.updateProfile(user.getId(), updates);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Profile updated successfully",
-                "name", user.getName(),
-                "phone", user.getPhone() != null ? user.getPhone() : ""
+                "name", updated.getName(),
+                "phone", updated.getPhone() != null ? updated.getPhone() : ""
         ));
     }
 
@@ -156,7 +155,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("error", "New password must be at least 6 characters"));
         }
 
-        boolean success = authService.changePassword(user, currentPassword, newPassword);
+        boolean success = authService.changePassword(user.getId(), currentPassword, newPassword);
         
         if (success) {
             return ResponseEntity.ok(Map.of("message", "Password changed successfully"));
@@ -170,8 +169,10 @@ public class AuthController {
     // ============================================
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> request,
+                                            HttpServletRequest httpRequest) {
         String email = request.get("email");
+        authRateLimiter.check(AuthRateLimiter.Scope.OTP, httpRequest.getRemoteAddr(), email);
         
         if (email == null || email.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Email is required"));
@@ -1,18 +1,43 @@
 package com.lendtracker.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.dto.BatchPaymentRequest;
+import com.lendtracker.dto.BatchPaymentResult;
+import com.lendtracker.dto.BulkImportResult;
+import com.lendtracker.dto.CashFlowForecast;
+import com.lendtracker.dto.CursorPage;
+import com.lendtracker.dto.LoanFilter;
+import com.lendtracker.dto.LoanResponse;
 import com.lendtracker.dto.PaymentHistoryResponse;
 import com.lendtracker.dto.PaymentRequest;
 import com.lendtracker.entity.Loan;
 import com.lendtracker.entity.User;
+import com.lendtracker.service.AmortizationService;
+import com.lendtracker.service.CashFlowForecastService;
+import com.lendtracker.service.LoanExportService;
+import com.lendtracker.service.LoanImportService;
 import com.lendtracker.service.LoanService;
+import com.lendtracker.service.PaymentBatchService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,7 +46,16 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class LoanController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final LoanService loanService;
+    private final LoanImportService loanImportService;
+    private final LoanExportService loanExportService;
+    private final AmortizationService amortizationService;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final PaymentBatchService paymentBatchService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Loan> createLoan(@Valid @RequestBody Loan loan,
@@ -30,14 +64,37 @@ public class LoanController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdLoan);
     }
 
+    // Bulk import: CSV with a header row (text/csv) or one JSON loan per line
+    // (application/x-ndjson). Invalid rows are skipped and reported by row number.
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<BulkImportResult> importLoans(@AuthenticationPrincipal User user,
+                                                        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                        InputStream body) throws IOException {
+        LoanImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? LoanImportService.Format.CSV
+                : LoanImportService.Format.JSON_LINES;
+        return ResponseEntity.ok(loanImportService.importLoans(user, body, format));
+    }
+
+    // Without parameters the full list is returned. Pass limit (and the previous
+    // X-Next-Cursor as cursor) for keyset pages, or stream=true to stream every row.
     @GetMapping
-    public ResponseEntity<List<Loan>> getAllLoans(@AuthenticationPrincipal User user) {
-        List<Loan> loans = loanService.getAllLoans(user);
+    public ResponseEntity<?> getAllLoans(@AuthenticationPrincipal User user,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(defaultValue = "false") boolean stream) {
+        if (stream) {
+            return streamLoans(user, LoanFilter.none());
+        }
+        if (cursor != null || limit != null) {
+            return withNextCursor(loanService.searchLoans(user, LoanFilter.none(), cursor, limit));
+        }
+        List<LoanResponse> loans = loanService.getAllLoans(user);
         return ResponseEntity.ok(loans);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Loan>> searchLoans(
+    public ResponseEntity<?> searchLoans(
             @AuthenticationPrincipal User user,
             @RequestParam(required = false) String q,
             @RequestParam(required = false) String status,
@@ -47,27 +104,86 @@ public class LoanController {
             @RequestParam(required = false) Double minRate,
             @RequestParam(required = false) Double maxRate,
             @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean stream
     ) {
-        java.time.LocalDate from = fromDate != null && !fromDate.isEmpty() 
-            ? java.time.LocalDate.parse(fromDate) : null;
-        java.time.LocalDate to = toDate != null && !toDate.isEmpty() 
-            ? java.time.LocalDate.parse(toDate) : null;
-            
-        List<Loan> loans = loanService.searchAndFilterLoans(
+        LocalDate from = fromDate != null && !fromDate.isEmpty() 
+            ? LocalDate.parse(fromDate) : null;
+        LocalDate to = toDate != null && !toDate.isEmpty() 
+            ? LocalDate.parse(toDate) : null;
+        
+        LoanFilter filter = loanService.buildFilter(q, status, frequency, minAmount, maxAmount, minRate, maxRate, from, to);
+        if (stream) {
+            return streamLoans(user, filter);
+        }
+        if (cursor != null || limit != null) {
+            return withNextCursor(loanService.searchLoans(user, filter, cursor, limit));
+        }
+        List<LoanResponse> loans = loanService.searchAndFilterLoans(
             user, q, status, frequency, minAmount, maxAmount, minRate, maxRate, from, to
         );
         return ResponseEntity.ok(loans);
     }
 
+    // Writes a JSON array row by row as loans come off the database cursor
+    private ResponseEntity<StreamingResponseBody> streamLoans(User user, LoanFilter filter) {
+        ObjectWriter writer = objectMapper.writerFor(LoanResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                loanService.streamLoans(user, filter, loan -> {
+                    try {
+                        writer.writeValue(generator, loan);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // CSV exports, streamed from a database cursor
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLoans(@AuthenticationPrincipal User user) {
+        return csvAttachment("loans", out -> loanExportService.exportLoansCsv(user, out));
+    }
+
+    @GetMapping("/payment-history/export")
+    public ResponseEntity<StreamingResponseBody> exportPaymentHistory(@AuthenticationPrincipal User user) {
+        return csvAttachment("payments", out -> loanExportService.exportPaymentsCsv(user, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> csvAttachment(String name, StreamingResponseBody body) {
+        String fileName = name + "-" + LocalDate.now() + ".csv";
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    // Expected inflows from active loans; granularity: week or month (default), months: 1-60 (default 12)
+    @GetMapping("/forecast")
+    public ResponseEntity<CashFlowForecast> getForecast(@RequestParam(required = false) Integer months,
+                                                        @RequestParam(required = false) String granularity,
+                                                        @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(cashFlowForecastService.getForecast(user, months, granularity));
+    }
+
     @GetMapping("/filter-counts")
     public ResponseEntity<Map<String, Object>> getFilterCounts(@AuthenticationPrincipal User user) {
         return ResponseEntity.ok(loanService.getFilterCounts(user));
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Loan>> getActiveLoans(@AuthenticationPrincipal User user) {
-        List<Loan> loans = loanService.getActiveLoans(user);
+    public ResponseEntity<List<LoanResponse>> getActiveLoans(@AuthenticationPrincipal User user) {
+        List<LoanResponse> loans = loanService.getActiveLoans(user);
         return ResponseEntity.ok(loans);
     }
 
@@ -78,6 +194,15 @@ public class LoanController {
         return ResponseEntity.ok(loan);
     }
 
+    // method: simple (default), compound or reducing_balance; periods defaults to the loan term
+    @GetMapping("/{id}/schedule")
+    public ResponseEntity<AmortizationSchedule> getSchedule(@PathVariable Long id,
+                                                            @RequestParam(required = false) String method,
+                                                            @RequestParam(required = false) Integer periods,
+                                                            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(amortizationService.getSchedule(id, user, method, periods));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Loan> updateLoan(@PathVariable Long id, 
                                            @Valid @RequestBody Loan loan,
@@ -117,6 +242,14 @@ public class LoanController {
         return ResponseEntity.ok(loan);
     }
     
+    // Many interest/principal payments across loans in one request. Each item is
+    // reported as recorded or rejected; the recorded ones commit together.
+    @PostMapping("/payments/batch")
+    public ResponseEntity<BatchPaymentResult> receivePayments(@Valid @RequestBody BatchPaymentRequest request,
+                                                              @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(paymentBatchService.recordPayments(user, request.getPayments()));
+    }
+    
     // Payment history endpoints
     @GetMapping("/{id}/payment-history")
     public ResponseEntity<List<PaymentHistoryResponse>> getPaymentHistory(@PathVariable Long id,
@@ -125,10 +258,22 @@ public class LoanController {
         return ResponseEntity.ok(history);
     }
     
+    // Optional keyset pagination: pass limit (and the X-Next-Cursor of the previous page as cursor)
     @GetMapping("/payment-history/all")
-    public ResponseEntity<List<PaymentHistoryResponse>> getAllPaymentHistory(@AuthenticationPrincipal User user) {
-        List<PaymentHistoryResponse> history = loanService.getAllPaymentHistory(user);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<List<PaymentHistoryResponse>> getAllPaymentHistory(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<PaymentHistoryResponse> page = loanService.getAllPaymentHistory(user, cursor, limit);
+        return withNextCursor(page);
+    }
+    
+    private static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
     
     // Interest calculator (no authentication required - public utility)
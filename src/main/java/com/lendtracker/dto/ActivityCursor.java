@@ -0,0 +1,30 @@
+package com.lendtracker.dto;
+
+import com.lendtracker.exception.InvalidCursorException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position after the last event of an activity feed page ordered by (timestamp DESC, id DESC).
+ * Encoded for clients as "yyyy-MM-ddTHH:mm:ss[.fraction]_id".
+ */
+public record ActivityCursor(LocalDateTime timestamp, Long id) {
+
+    public static ActivityCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.lastIndexOf('_');
+        try {
+            return new ActivityCursor(
+                    LocalDateTime.parse(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        return timestamp + "_" + id;
+    }
+}
@@ -0,0 +1,41 @@
+package com.lendtracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-period due amounts for a loan. Instances are cached and shared between
+ * requests, so they are read-only.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class AmortizationSchedule {
+    private final Long loanId;
+    private final String method;
+    private final String frequency;
+    private final int periods;
+    // Rate applied per period, as a percentage
+    private final BigDecimal periodicRate;
+    private final BigDecimal principal;
+    private final BigDecimal totalInterest;
+    private final BigDecimal totalPayment;
+    private final List<Entry> entries;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final int period;
+        private final LocalDate dueDate;
+        private final BigDecimal openingBalance;
+        private final BigDecimal interest;
+        private final BigDecimal principal;
+        private final BigDecimal payment;
+        private final BigDecimal closingBalance;
+    }
+}
@@ -0,0 +1,30 @@
+package com.lendtracker.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchPaymentRequest {
+
+    public static final int MAX_PAYMENTS = 500;
+
+    @NotEmpty(message = "At least one payment is required")
+    @Size(max = MAX_PAYMENTS, message = "At most " + MAX_PAYMENTS + " payments per batch")
+    private List<Item> payments;
+
+    // Items are checked one by one so that a bad item is reported without failing the batch
+    @Data
+    public static class Item {
+        private Long loanId;
+        // INTEREST or PRINCIPAL
+        private String type;
+        private BigDecimal amount;
+        private LocalDate paymentDate;
+        private String notes;
+    }
+}
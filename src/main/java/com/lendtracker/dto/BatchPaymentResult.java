@@ -0,0 +1,33 @@
+package com.lendtracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+public class BatchPaymentResult {
+    private int totalCount;
+    private int recordedCount;
+    private int failedCount;
+    private BigDecimal totalInterest;
+    private BigDecimal totalPrincipal;
+    // One entry per request item, in request order
+    private List<ItemResult> results;
+    // Each loan that received a payment, after the whole batch was applied
+    private List<LoanResponse> loans;
+
+    @Data
+    @AllArgsConstructor
+    public static class ItemResult {
+        // 0-based position of the item in the request
+        private int index;
+        private Long loanId;
+        private boolean recorded;
+        // Why the item was rejected; null when recorded
+        private String message;
+    }
+}
@@ -0,0 +1,31 @@
+package com.lendtracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+public class BulkImportResult {
+    private int totalRows;
+    private int importedCount;
+    private int failedCount;
+    private BigDecimal totalPrincipal;
+    // At most the first MAX_REPORTED_ERRORS rejected rows; see errorsTruncated
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+    // False if a batch failed to save: rows in earlier batches are committed and counted
+    // in importedCount, the failed batch and everything after it were not imported
+    private boolean completed;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based data row number (the CSV header row is not counted)
+        private int row;
+        private String message;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lendtracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Expected interest and principal inflows from a user's active loans, per
+ * week or month. Instances are cached and shared between requests, so they
+ * are read-only.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CashFlowForecast {
+    private final String granularity;
+    // First day covered (inclusive) and end of the horizon (exclusive)
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int loanCount;
+    private final BigDecimal totalInterest;
+    private final BigDecimal totalPrincipal;
+    // Outstanding principal of loans whose due date has already passed
+    private final BigDecimal overduePrincipal;
+    private final List<Bucket> buckets;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Bucket {
+        private final LocalDate start;
+        private final LocalDate end;
+        private final BigDecimal interest;
+        private final BigDecimal principal;
+        private final BigDecimal total;
+    }
+}
@@ -0,0 +1,30 @@
+package com.lendtracker.dto;
+
+import com.lendtracker.exception.InvalidCursorException;
+
+import java.time.LocalDate;
+
+/**
+ * Position after the last row of a page ordered by (date DESC, id DESC).
+ * Encoded for clients as "yyyy-MM-dd_id".
+ */
+public record KeysetCursor(LocalDate date, Long id) {
+
+    public static KeysetCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.indexOf('_');
+        try {
+            return new KeysetCursor(
+                    LocalDate.parse(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        return date + "_" + id;
+    }
+}
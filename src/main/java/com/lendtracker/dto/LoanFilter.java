@@ -0,0 +1,29 @@
+package com.lendtracker.dto;
+
+import com.lendtracker.entity.Loan;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Parsed search/filter criteria for a user's loan list. Null fields are not applied.
+ */
+@Data
+@Builder
+public class LoanFilter {
+    private String search;
+    private Loan.LoanStatus status;
+    private Loan.InterestFrequency frequency;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private Double minRate;
+    private Double maxRate;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+
+    public static LoanFilter none() {
+        return LoanFilter.builder().build();
+    }
+}
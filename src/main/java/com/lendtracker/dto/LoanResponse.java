@@ -0,0 +1,59 @@
+package com.lendtracker.dto;
+
+import com.lendtracker.entity.Loan;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a loan for list responses. Selected directly by JPQL
+ * constructor expressions, so rows never enter the persistence context.
+ * Serializes to the same JSON fields as the Loan entity.
+ */
+public record LoanResponse(
+        Long id,
+        String borrowerName,
+        String borrowerPhone,
+        String borrowerEmail,
+        BigDecimal principalAmount,
+        Double interestRate,
+        LocalDate lendDate,
+        LocalDate dueDate,
+        Loan.InterestFrequency interestFrequency,
+        BigDecimal totalInterestReceived,
+        BigDecimal totalPrincipalReceived,
+        String notes,
+        Loan.LoanStatus status,
+        LocalDate nextDueDate,
+        Loan.DelinquencyStatus delinquency,
+        LocalDate createdAt,
+        LocalDate updatedAt
+) {
+
+    /** Column list for "SELECT new" queries over a Loan aliased as l; keep in component order. */
+    public static final String SELECT = "SELECT new com.lendtracker.dto.LoanResponse(" +
+            "l.id, l.borrowerName, l.borrowerPhone, l.borrowerEmail, l.principalAmount, l.interestRate, " +
+            "l.lendDate, l.dueDate, l.interestFrequency, l.totalInterestReceived, l.totalPrincipalReceived, " +
+            "l.notes, l.status, l.nextDueDate, l.delinquency, l.createdAt, l.updatedAt) ";
+
+    public static LoanResponse fromEntity(Loan loan) {
+        return new LoanResponse(
+                loan.getId(),
+                loan.getBorrowerName(),
+                loan.getBorrowerPhone(),
+                loan.getBorrowerEmail(),
+                loan.getPrincipalAmount(),
+                loan.getInterestRate(),
+                loan.getLendDate(),
+                loan.getDueDate(),
+                loan.getInterestFrequency(),
+                loan.getTotalInterestReceived(),
+                loan.getTotalPrincipalReceived(),
+                loan.getNotes(),
+                loan.getStatus(),
+                loan.getNextDueDate(),
+                loan.getDelinquency(),
+                loan.getCreatedAt(),
+                loan.getUpdatedAt());
+    }
+}
@@ -0,0 +1,68 @@
+package com.lendtracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of something that happened, written in the same
+ * transaction as the change it describes. The admin activity feed reads
+ * it newest first through idx_activity_created.
+ *
+ * User and loan are stored as plain ids plus the names needed for display,
+ * so reading the feed never joins or lazily loads other tables.
+ */
+@Entity
+@Table(name = "activity_events", indexes = {
+        @Index(name = "idx_activity_created", columnList = "created_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ActivityType type;
+
+    @Column(nullable = false, length = 500)
+    private String message;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "user_name")
+    private String userName;
+
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        // Backfilled events keep the timestamp of the row they were built from
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public enum ActivityType {
+        USER_REGISTERED, LOAN_CREATED, LOANS_IMPORTED, LOAN_STATUS_CHANGED, LOAN_DELETED, PAYMENT_RECORDED
+    }
+}
@@ -0,0 +1,44 @@
+package com.lendtracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Progress of a one-off backfill over users and loans, one row per backfill.
+ * Each chunk locks the row, continues after the recorded ids and saves the new
+ * position in the same transaction, so instances starting together share the
+ * work without repeating it and a restart resumes where the last chunk
+ * committed. Rows above the end ids were written after the backfill started
+ * and are left alone.
+ */
+@Entity
+@Table(name = "backfill_progress")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillProgress {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_user_id", nullable = false)
+    @Builder.Default
+    private long lastUserId = 0;
+
+    @Column(name = "last_loan_id", nullable = false)
+    @Builder.Default
+    private long lastLoanId = 0;
+
+    @Column(name = "end_user_id", nullable = false)
+    private long endUserId;
+
+    @Column(name = "end_loan_id", nullable = false)
+    private long endLoanId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean completed = false;
+}
@@ -4,12 +4,20 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "loans")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "loan")
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loan_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_loan_status_next_due", columnList = "status, next_due_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -82,6 +90,25 @@ public class Loan {
     @Builder.Default
     private LoanStatus status = LoanStatus.ACTIVE;
 
+    // Date the next payment is expected: the first interest period not yet
+    // covered by interest received, or the due date. Maintained by LoanService.
+    @Column(name = "next_due_date")
+    private LocalDate nextDueDate;
+
+    // Set by DelinquencyService's scheduled scan; reset once payments catch up
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    @Builder.Default
+    private DelinquencyStatus delinquency = DelinquencyStatus.CURRENT;
+
+    // Optimistic lock: concurrent payments or edits to the same loan cannot
+    // overwrite each other; the loser is retried or reported as a conflict
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
     @Column(updatable = false)
     private LocalDate createdAt;
 
@@ -106,6 +133,10 @@ public class Loan {
     public enum LoanStatus {
         ACTIVE, CLOSED, DEFAULTED
     }
+
+    public enum DelinquencyStatus {
+        CURRENT, OVERDUE, DELINQUENT
+    }
 }
 
 
@@ -3,13 +3,19 @@ package com.lendtracker.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_history")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "payment-history")
+@Table(name = "payment_history", indexes = {
+        @Index(name = "idx_payment_loan_date", columnList = "loan_id, payment_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,129 @@
+package com.lendtracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user dashboard totals, maintained as deltas by LoanService and
+ * periodically reconciled against the loans table.
+ */
+@Entity
+@Table(name = "portfolio_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Loan counts by status
+    @Column(nullable = false)
+    @Builder.Default
+    private long activeLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long closedLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long defaultedLoans = 0;
+
+    // Principal of ACTIVE loans
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal totalLentOut = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal totalInterestReceived = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPrincipalReceived = BigDecimal.ZERO;
+
+    // SUM(interestRate) of ACTIVE loans, for the average rate
+    @Column(nullable = false, precision = 21, scale = 6)
+    @Builder.Default
+    private BigDecimal activeRateTotal = BigDecimal.ZERO;
+
+    // SUM(principalAmount * interestRate) of ACTIVE MONTHLY loans
+    @Column(nullable = false, precision = 25, scale = 6)
+    @Builder.Default
+    private BigDecimal monthlyWeightedRateTotal = BigDecimal.ZERO;
+
+    // ACTIVE loan counts by interest frequency
+    @Column(nullable = false)
+    @Builder.Default
+    private long dailyLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long weeklyLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long biweeklyLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long monthlyLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long quarterlyLoans = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private long yearlyLoans = 0;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public long getLoanCount(Loan.InterestFrequency frequency) {
+        return switch (frequency) {
+            case DAILY -> dailyLoans;
+            case WEEKLY -> weeklyLoans;
+            case BIWEEKLY -> biweeklyLoans;
+            case MONTHLY -> monthlyLoans;
+            case QUARTERLY -> quarterlyLoans;
+            case YEARLY -> yearlyLoans;
+        };
+    }
+
+    public void addLoanCount(Loan.InterestFrequency frequency, long delta) {
+        switch (frequency) {
+            case DAILY -> dailyLoans += delta;
+            case WEEKLY -> weeklyLoans += delta;
+            case BIWEEKLY -> biweeklyLoans += delta;
+            case MONTHLY -> monthlyLoans += delta;
+            case QUARTERLY -> quarterlyLoans += delta;
+            case YEARLY -> yearlyLoans += delta;
+        }
+    }
+
+    public void addStatusCount(Loan.LoanStatus status, long delta) {
+        switch (status) {
+            case ACTIVE -> activeLoans += delta;
+            case CLOSED -> closedLoans += delta;
+            case DEFAULTED -> defaultedLoans += delta;
+        }
+    }
+
+    public long getTotalLoans() {
+        return activeLoans + closedLoans + defaultedLoans;
+    }
+}
@@ -0,0 +1,8 @@
+package com.lendtracker.exception;
+
+public class InvalidForecastException extends RuntimeException {
+    
+    public InvalidForecastException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.lendtracker.exception;
+
+public class InvalidScheduleException extends RuntimeException {
+    
+    public InvalidScheduleException(String message) {
+        super(message);
+    }
+}
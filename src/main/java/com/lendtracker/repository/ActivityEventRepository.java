@@ -0,0 +1,24 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.entity.ActivityEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ActivityEventRepository extends JpaRepository<ActivityEvent, Long> {
+
+    // Newest first; (beforeTime, beforeId) is the keyset cursor of the last row already returned
+    @Query("SELECT e FROM ActivityEvent e " +
+           "WHERE (:beforeTime IS NULL OR e.createdAt < :beforeTime " +
+           "    OR (e.createdAt = :beforeTime AND e.id < :beforeId)) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<ActivityEvent> findRecentBefore(@Param("beforeTime") LocalDateTime beforeTime,
+                                         @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.entity.BackfillProgress;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BackfillProgressRepository extends JpaRepository<BackfillProgress, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM BackfillProgress p WHERE p.name = :name")
+    Optional<BackfillProgress> findByNameForUpdate(@Param("name") String name);
+}
@@ -1,16 +1,32 @@
 package com.lendtracker.repository;
 
+import com.lendtracker.dto.LoanResponse;
 import com.lendtracker.entity.Loan;
 import com.lendtracker.entity.User;
+import com.lendtracker.repository.projection.BorrowerTotal;
+import com.lendtracker.repository.projection.LoanFilterCount;
+import com.lendtracker.repository.projection.LoanForecastFields;
+import com.lendtracker.repository.projection.LoanFrequencySummary;
+import com.lendtracker.repository.projection.LoanSearchFields;
+import com.lendtracker.repository.projection.LoanStatusSummary;
+import com.lendtracker.repository.projection.UserLoanCount;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -23,9 +39,25 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findByUserAndStatus(User user, Loan.LoanStatus status);
     
     Optional<Loan> findByIdAndUser(Long id, User user);
+
+    long countByUser(User user);
+
+    // Payments lock the loan before reading its totals, so payments to one loan queue instead of
+    // failing their version check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") Long id);
+
+    // Every loan touched by a payment batch in one IN query; ids of other users' loans are dropped.
+    // Locked in id order so two batches cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.user = :user AND l.id IN :ids ORDER BY l.id")
+    List<Loan> findByUserAndIdInForUpdate(@Param("user") User user, @Param("ids") Collection<Long> ids);
     
-    // Search and filter queries
-    @Query("SELECT l FROM Loan l WHERE l.user = :user " +
+    // Search and filter queries. Free-text search is normally resolved to ids by BorrowerSearchIndex
+    // and run through the ...ByIds variants; the LIKE clause on :search is the fallback for very
+    // broad terms and for portfolios too large to index.
+    String SEARCH_AND_FILTER_WHERE = "WHERE l.user = :user " +
            "AND (:search IS NULL OR LOWER(l.borrowerName) LIKE LOWER(CONCAT('%', :search, '%')) " +
            "    OR LOWER(l.borrowerEmail) LIKE LOWER(CONCAT('%', :search, '%')) " +
            "    OR LOWER(l.borrowerPhone) LIKE LOWER(CONCAT('%', :search, '%'))) " +
@@ -36,9 +68,55 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
            "AND (:minRate IS NULL OR l.interestRate >= :minRate) " +
            "AND (:maxRate IS NULL OR l.interestRate <= :maxRate) " +
            "AND (:fromDate IS NULL OR l.lendDate >= :fromDate) " +
-           "AND (:toDate IS NULL OR l.lendDate <= :toDate) " +
-           "ORDER BY l.createdAt DESC")
-    List<Loan> searchAndFilter(
+           "AND (:toDate IS NULL OR l.lendDate <= :toDate) ";
+
+    String MATCH_IDS = "AND l.id IN :matchIds ";
+
+    // (beforeDate, beforeId) is the keyset cursor of the last row already returned.
+    // Rows are selected straight into LoanResponse, bypassing the persistence context.
+    String KEYSET_PAGE = "AND (:beforeDate IS NULL OR l.createdAt < :beforeDate " +
+           "    OR (l.createdAt = :beforeDate AND l.id < :beforeId)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC";
+
+    @Query(LoanResponse.SELECT + "FROM Loan l " + SEARCH_AND_FILTER_WHERE + KEYSET_PAGE)
+    List<LoanResponse> searchAndFilter(
+        @Param("user") User user,
+        @Param("search") String search,
+        @Param("status") Loan.LoanStatus status,
+        @Param("frequency") Loan.InterestFrequency frequency,
+        @Param("minAmount") BigDecimal minAmount,
+        @Param("maxAmount") BigDecimal maxAmount,
+        @Param("minRate") Double minRate,
+        @Param("maxRate") Double maxRate,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
+        @Param("beforeDate") LocalDate beforeDate,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
+    @Query(LoanResponse.SELECT + "FROM Loan l " + SEARCH_AND_FILTER_WHERE + MATCH_IDS + KEYSET_PAGE)
+    List<LoanResponse> searchAndFilterByIds(
+        @Param("user") User user,
+        @Param("search") String search,
+        @Param("status") Loan.LoanStatus status,
+        @Param("frequency") Loan.InterestFrequency frequency,
+        @Param("minAmount") BigDecimal minAmount,
+        @Param("maxAmount") BigDecimal maxAmount,
+        @Param("minRate") Double minRate,
+        @Param("maxRate") Double maxRate,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
+        @Param("matchIds") Collection<Long> matchIds,
+        @Param("beforeDate") LocalDate beforeDate,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+    
+    // Forward-only variants for streaming responses; rows are read in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(LoanResponse.SELECT + "FROM Loan l " + SEARCH_AND_FILTER_WHERE + "ORDER BY l.createdAt DESC, l.id DESC")
+    Stream<LoanResponse> streamSearchAndFilter(
         @Param("user") User user,
         @Param("search") String search,
         @Param("status") Loan.LoanStatus status,
@@ -50,12 +128,114 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
         @Param("fromDate") LocalDate fromDate,
         @Param("toDate") LocalDate toDate
     );
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(LoanResponse.SELECT + "FROM Loan l " + SEARCH_AND_FILTER_WHERE + MATCH_IDS +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    Stream<LoanResponse> streamSearchAndFilterByIds(
+        @Param("user") User user,
+        @Param("search") String search,
+        @Param("status") Loan.LoanStatus status,
+        @Param("frequency") Loan.InterestFrequency frequency,
+        @Param("minAmount") BigDecimal minAmount,
+        @Param("maxAmount") BigDecimal maxAmount,
+        @Param("minRate") Double minRate,
+        @Param("maxRate") Double maxRate,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
+        @Param("matchIds") Collection<Long> matchIds
+    );
+    
+    @Query("SELECT l.id AS id, l.borrowerName AS borrowerName, l.borrowerEmail AS borrowerEmail, " +
+           "l.borrowerPhone AS borrowerPhone FROM Loan l WHERE l.user = :user")
+    List<LoanSearchFields> findSearchFieldsByUser(@Param("user") User user);
+
+    @Query("SELECT l.id AS id, l.principalAmount AS principalAmount, " +
+           "l.totalPrincipalReceived AS totalPrincipalReceived, l.interestRate AS interestRate, " +
+           "l.interestFrequency AS interestFrequency, l.lendDate AS lendDate, l.dueDate AS dueDate " +
+           "FROM Loan l WHERE l.user = :user AND l.status = :status")
+    List<LoanForecastFields> findForecastFieldsByUser(@Param("user") User user,
+                                                      @Param("status") Loan.LoanStatus status);
+
+    // Loans past their next due date whose delinquency state needs to move on, in
+    // (nextDueDate, id) keyset order so each chunk is a range scan of idx_loan_status_next_due
+    @Query("SELECT l FROM Loan l JOIN FETCH l.user " +
+           "WHERE l.status = :status AND l.nextDueDate < :today " +
+           "AND (l.delinquency = :current OR (l.delinquency = :overdue AND l.nextDueDate < :delinquentBefore)) " +
+           "AND (:afterDate IS NULL OR l.nextDueDate > :afterDate " +
+           "    OR (l.nextDueDate = :afterDate AND l.id > :afterId)) " +
+           "ORDER BY l.nextDueDate, l.id")
+    List<Loan> findOverdueCandidates(
+        @Param("status") Loan.LoanStatus status,
+        @Param("today") LocalDate today,
+        @Param("delinquentBefore") LocalDate delinquentBefore,
+        @Param("current") Loan.DelinquencyStatus current,
+        @Param("overdue") Loan.DelinquencyStatus overdue,
+        @Param("afterDate") LocalDate afterDate,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    // Keyset chunks in id order with the owner loaded, for backfills
+    @Query("SELECT l FROM Loan l JOIN FETCH l.user WHERE l.id > :afterId AND l.id <= :toId ORDER BY l.id")
+    List<Loan> findIdRangeWithUser(@Param("afterId") Long afterId, @Param("toId") Long toId, Pageable pageable);
+
+    @Query("SELECT l FROM Loan l WHERE l.status = :status AND l.nextDueDate IS NULL AND l.id > :afterId " +
+           "ORDER BY l.id")
+    List<Loan> findWithoutNextDueDate(@Param("status") Loan.LoanStatus status,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
     
     // Count queries for filters
     long countByUserAndStatus(User user, Loan.LoanStatus status);
     
     long countByUserAndInterestFrequency(User user, Loan.InterestFrequency frequency);
     
+    // Both filter breakdowns in one round trip; callers sum over the other dimension
+    @Query("SELECT l.status AS status, l.interestFrequency AS frequency, COUNT(l) AS loanCount " +
+           "FROM Loan l WHERE l.user = :user GROUP BY l.status, l.interestFrequency")
+    List<LoanFilterCount> countByStatusAndFrequency(@Param("user") User user);
+    
+    // Dashboard aggregates (computed in the database, no Loan entities loaded)
+    @Query("SELECT l.status AS status, COUNT(l) AS loanCount, " +
+           "SUM(l.principalAmount) AS principalTotal, " +
+           "SUM(COALESCE(l.totalInterestReceived, 0)) AS interestReceived, " +
+           "SUM(COALESCE(l.totalPrincipalReceived, 0)) AS principalReceived, " +
+           "AVG(l.interestRate) AS averageInterestRate " +
+           "FROM Loan l WHERE l.user = :user GROUP BY l.status")
+    List<LoanStatusSummary> summarizeByStatus(@Param("user") User user);
+    
+    @Query("SELECT l.interestFrequency AS frequency, COUNT(l) AS loanCount, " +
+           "SUM(l.principalAmount * l.interestRate) AS weightedRateTotal " +
+           "FROM Loan l WHERE l.user = :user AND l.status = :status GROUP BY l.interestFrequency")
+    List<LoanFrequencySummary> summarizeByFrequency(@Param("user") User user,
+                                                    @Param("status") Loan.LoanStatus status);
+    
+    @Query("SELECT l.borrowerName AS name, SUM(l.principalAmount) AS totalAmount " +
+           "FROM Loan l WHERE l.user = :user AND l.status = :status " +
+           "GROUP BY l.borrowerName ORDER BY SUM(l.principalAmount) DESC")
+    List<BorrowerTotal> findTopBorrowers(@Param("user") User user,
+                                         @Param("status") Loan.LoanStatus status,
+                                         Pageable pageable);
+    
+    // System-wide aggregates (admin statistics)
+    @Query("SELECT l.status AS status, COUNT(l) AS loanCount, " +
+           "SUM(l.principalAmount) AS principalTotal, " +
+           "SUM(COALESCE(l.totalInterestReceived, 0)) AS interestReceived, " +
+           "SUM(COALESCE(l.totalPrincipalReceived, 0)) AS principalReceived, " +
+           "AVG(l.interestRate) AS averageInterestRate " +
+           "FROM Loan l GROUP BY l.status")
+    List<LoanStatusSummary> summarizeAllByStatus();
+    
+    @Query("SELECT l.interestFrequency AS frequency, COUNT(l) AS loanCount, " +
+           "SUM(l.principalAmount * l.interestRate) AS weightedRateTotal " +
+           "FROM Loan l GROUP BY l.interestFrequency")
+    List<LoanFrequencySummary> summarizeAllByFrequency();
+    
+    @Query("SELECT u.name AS name, u.email AS email, COUNT(l) AS loanCount " +
+           "FROM Loan l JOIN l.user u GROUP BY u.id, u.name, u.email ORDER BY COUNT(l) DESC")
+    List<UserLoanCount> findTopUsersByLoanCount(Pageable pageable);
+    
     // Legacy queries (for admin or system use)
     List<Loan> findByStatus(Loan.LoanStatus status);
     
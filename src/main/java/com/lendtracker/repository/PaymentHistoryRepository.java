@@ -2,12 +2,18 @@ package com.lendtracker.repository;
 
 import com.lendtracker.entity.Loan;
 import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -18,9 +24,22 @@ public interface PaymentHistoryRepository extends JpaRepository<PaymentHistory,
     List<PaymentHistory> findByLoanAndPaymentTypeOrderByPaymentDateDesc(
             Loan loan, PaymentHistory.PaymentType paymentType);
 
+    // Served from the query cache until the next write to payment_history
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT ph FROM PaymentHistory ph WHERE ph.loan.id = :loanId ORDER BY ph.paymentDate DESC, ph.createdAt DESC")
     List<PaymentHistory> findAllByLoanId(@Param("loanId") Long loanId);
 
+    // All payments for a user's loans, newest first, with the loan fetched in the same query.
+    // (beforeDate, beforeId) is the keyset cursor of the last row already returned.
+    @Query("SELECT ph FROM PaymentHistory ph JOIN FETCH ph.loan l WHERE l.user = :user " +
+           "AND (:beforeDate IS NULL OR ph.paymentDate < :beforeDate " +
+           "    OR (ph.paymentDate = :beforeDate AND ph.id < :beforeId)) " +
+           "ORDER BY ph.paymentDate DESC, ph.id DESC")
+    List<PaymentHistory> findByUserBefore(@Param("user") User user,
+                                          @Param("beforeDate") LocalDate beforeDate,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
+
     @Modifying
     @Query("DELETE FROM PaymentHistory ph WHERE ph.loan.id = :loanId")
     void deleteByLoanId(@Param("loanId") Long loanId);
@@ -0,0 +1,30 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.entity.PortfolioSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PortfolioSummaryRepository extends JpaRepository<PortfolioSummary, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PortfolioSummary s WHERE s.userId = :userId")
+    Optional<PortfolioSummary> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT s.userId FROM PortfolioSummary s WHERE s.userId > :afterUserId ORDER BY s.userId")
+    List<Long> findUserIdsAfter(@Param("afterUserId") Long afterUserId,
+                                Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterUserId " +
+           "AND NOT EXISTS (SELECT s.userId FROM PortfolioSummary s WHERE s.userId = u.id) ORDER BY u.id")
+    List<Long> findUserIdsWithoutSummaryAfter(@Param("afterUserId") Long afterUserId,
+                                              Pageable pageable);
+}
@@ -1,9 +1,19 @@
 package com.lendtracker.repository;
 
 import com.lendtracker.entity.User;
+import com.lendtracker.repository.projection.DailyCount;
+import com.lendtracker.repository.projection.UserWithLoanTotals;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +22,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
+
+    // Keyset chunks in id order, for backfills
+    @Query("SELECT u FROM User u WHERE u.id > :afterId AND u.id <= :toId ORDER BY u.id")
+    List<User> findIdRange(@Param("afterId") Long afterId, @Param("toId") Long toId, Pageable pageable);
+
+    // Serializes creating a user's first portfolio summary row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+    
+    // Admin statistics
+    long countByActiveTrue();
+    
+    long countByRole(User.Role role);
+    
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+    
+    @Query("SELECT CAST(u.createdAt AS LocalDate) AS createdDate, COUNT(u) AS createdCount FROM User u " +
+           "WHERE u.createdAt >= :since GROUP BY CAST(u.createdAt AS LocalDate)")
+    List<DailyCount> countSignupsByDaySince(@Param("since") LocalDateTime since);
+    
+    // Admin user list: one LEFT JOIN ... GROUP BY instead of a loan query per user
+    @Query(value = "SELECT u.id AS id, u.name AS name, u.email AS email, u.phone AS phone, " +
+                   "u.role AS role, u.active AS active, u.createdAt AS createdAt, u.lastLoginAt AS lastLoginAt, " +
+                   "COUNT(l) AS loanCount, COALESCE(SUM(l.principalAmount), 0) AS totalLent " +
+                   "FROM User u LEFT JOIN u.loans l " +
+                   "GROUP BY u.id, u.name, u.email, u.phone, u.role, u.active, u.createdAt, u.lastLoginAt",
+           countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserWithLoanTotals> findAllWithLoanTotals(Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package com.lendtracker.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Total principal lent to a single borrower.
+ */
+public interface BorrowerTotal {
+
+    String getName();
+
+    BigDecimal getTotalAmount();
+}
@@ -0,0 +1,13 @@
+package com.lendtracker.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Number of rows created on one calendar day.
+ */
+public interface DailyCount {
+
+    LocalDate getCreatedDate();
+
+    Long getCreatedCount();
+}
@@ -0,0 +1,15 @@
+package com.lendtracker.repository.projection;
+
+import com.lendtracker.entity.Loan;
+
+/**
+ * Number of a user's loans for one (status, interest frequency) pair.
+ */
+public interface LoanFilterCount {
+
+    Loan.LoanStatus getStatus();
+
+    Loan.InterestFrequency getFrequency();
+
+    Long getLoanCount();
+}
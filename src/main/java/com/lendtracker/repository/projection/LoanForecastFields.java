@@ -0,0 +1,26 @@
+package com.lendtracker.repository.projection;
+
+import com.lendtracker.entity.Loan;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The loan terms needed to project future interest and principal inflows.
+ */
+public interface LoanForecastFields {
+
+    Long getId();
+
+    BigDecimal getPrincipalAmount();
+
+    BigDecimal getTotalPrincipalReceived();
+
+    Double getInterestRate();
+
+    Loan.InterestFrequency getInterestFrequency();
+
+    LocalDate getLendDate();
+
+    LocalDate getDueDate();
+}
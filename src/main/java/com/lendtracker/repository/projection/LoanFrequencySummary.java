@@ -0,0 +1,16 @@
+package com.lendtracker.repository.projection;
+
+import com.lendtracker.entity.Loan;
+
+/**
+ * Per-frequency aggregate of a user's loans.
+ * weightedRateTotal is SUM(principalAmount * interestRate), used to derive expected interest.
+ */
+public interface LoanFrequencySummary {
+
+    Loan.InterestFrequency getFrequency();
+
+    Long getLoanCount();
+
+    Double getWeightedRateTotal();
+}
@@ -0,0 +1,15 @@
+package com.lendtracker.repository.projection;
+
+/**
+ * The borrower fields covered by free-text loan search.
+ */
+public interface LoanSearchFields {
+
+    Long getId();
+
+    String getBorrowerName();
+
+    String getBorrowerEmail();
+
+    String getBorrowerPhone();
+}
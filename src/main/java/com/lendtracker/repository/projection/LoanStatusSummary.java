@@ -0,0 +1,23 @@
+package com.lendtracker.repository.projection;
+
+import com.lendtracker.entity.Loan;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-status aggregate of a user's loans (one row per LoanStatus present).
+ */
+public interface LoanStatusSummary {
+
+    Loan.LoanStatus getStatus();
+
+    Long getLoanCount();
+
+    BigDecimal getPrincipalTotal();
+
+    BigDecimal getInterestReceived();
+
+    BigDecimal getPrincipalReceived();
+
+    Double getAverageInterestRate();
+}
@@ -0,0 +1,13 @@
+package com.lendtracker.repository.projection;
+
+/**
+ * A user together with the number of loans they have recorded.
+ */
+public interface UserLoanCount {
+
+    String getName();
+
+    String getEmail();
+
+    Long getLoanCount();
+}
@@ -0,0 +1,32 @@
+package com.lendtracker.repository.projection;
+
+import com.lendtracker.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user row for the admin list, with their loan count and total principal lent.
+ */
+public interface UserWithLoanTotals {
+
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+
+    String getPhone();
+
+    User.Role getRole();
+
+    Boolean getActive();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getLastLoginAt();
+
+    Long getLoanCount();
+
+    BigDecimal getTotalLent();
+}
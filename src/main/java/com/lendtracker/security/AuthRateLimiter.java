@@ -0,0 +1,113 @@
+package com.lendtracker.security;
+
+import com.lendtracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token-bucket limits on the public login and OTP endpoints, per client IP
+ * and per email address. Each scope has its own buckets, so spending the
+ * login allowance does not block OTP verification.
+ *
+ * Buckets live in a bounded LRU map; a key evicted for space comes back
+ * with a full bucket. Rejections are published as
+ * auth.rate-limit.rejected{scope=login|otp, key=ip|email}.
+ */
+@Component
+public class AuthRateLimiter {
+
+    public enum Scope { LOGIN, OTP }
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final boolean enabled;
+    private final int ipCapacity;
+    private final int ipRefillPerMinute;
+    private final int emailCapacity;
+    private final int emailRefillPerMinute;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets;
+
+    public AuthRateLimiter(@Value("${app.auth.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.auth.rate-limit.per-ip.capacity:20}") int ipCapacity,
+                           @Value("${app.auth.rate-limit.per-ip.refill-per-minute:20}") int ipRefillPerMinute,
+                           @Value("${app.auth.rate-limit.per-email.capacity:5}") int emailCapacity,
+                           @Value("${app.auth.rate-limit.per-email.refill-per-minute:5}") int emailRefillPerMinute,
+                           @Value("${app.auth.rate-limit.max-keys:100000}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerMinute = ipRefillPerMinute;
+        this.emailCapacity = emailCapacity;
+        this.emailRefillPerMinute = emailRefillPerMinute;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxKeys;
+            }
+        });
+    }
+
+    /**
+     * Take one token from the client's IP bucket and, when an email is given,
+     * from that address's bucket; throws a 429 with Retry-After if either is empty.
+     */
+    public void check(Scope scope, String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        String prefix = scope.name().toLowerCase(Locale.ROOT);
+        if (clientIp != null) {
+            acquire(prefix, "ip", clientIp, ipCapacity, ipRefillPerMinute);
+        }
+        if (email != null && !email.isBlank()) {
+            acquire(prefix, "email", email.trim().toLowerCase(Locale.ROOT), emailCapacity, emailRefillPerMinute);
+        }
+    }
+
+    private void acquire(String scope, String kind, String value, int capacity, int refillPerMinute) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(scope + ':' + kind + ':' + value,
+                key -> new TokenBucket(capacity, refillPerMinute, now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            meterRegistry.counter("auth.rate-limit.rejected", "scope", scope, "key", kind).increment();
+            long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            throw new TooManyRequestsException("Too many attempts. Please try again in " + retryAfter + " seconds.",
+                    retryAfter);
+        }
+    }
+
+    /** Holds up to capacity tokens, refilled continuously at refillPerMinute. */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int capacity, int refillPerMinute, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = (double) refillPerMinute / NANOS_PER_MINUTE;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        /** 0 if a token was taken, otherwise the nanoseconds until one is available. */
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return tokensPerNano > 0 ? (long) Math.ceil((1 - tokens) / tokensPerNano) : NANOS_PER_MINUTE;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.lendtracker.security;
 
 import com.lendtracker.entity.User;
 import com.lendtracker.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -31,10 +33,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                Long userId = jwtUtil.getUserIdFromToken(jwt);
+            Claims claims = StringUtils.hasText(jwt) ? jwtUtil.parseVerifiedClaims(jwt).orElse(null) : null;
+
+            if (claims != null) {
+                Long userId = jwtUtil.getUserId(claims);
                 
-                User user = userRepository.findById(userId).orElse(null);
+                User user = userPrincipalCache.get(userId, id -> userRepository.findById(id).orElse(null));
                 
                 if (user != null) {
                     UsernamePasswordAuthenticationToken authentication = 
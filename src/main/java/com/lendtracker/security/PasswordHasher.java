@@ -0,0 +1,116 @@
+package com.lendtracker.security;
+
+import com.lendtracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs BCrypt hashing and matching on a small dedicated pool instead of the
+ * servlet request thread.
+ *
+ * The pool has a fixed number of threads and a bounded queue. When the queue
+ * is full, or a caller has waited longer than app.auth.hash.timeout-ms, the
+ * request fails fast with a 429 so a burst of logins cannot pin every Tomcat
+ * thread on CPU and starve the rest of the API.
+ *
+ * Metrics: auth.password.hash{op=encode|match} (time on the worker),
+ * auth.password.queue (waiting tasks) and
+ * auth.password.rejected{reason=queue-full|timeout}.
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor pool;
+    private final long timeoutMillis;
+    private final Timer encodeLatency;
+    private final Timer matchLatency;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${app.auth.hash.threads:0}") int threads,
+                          @Value("${app.auth.hash.queue-capacity:16}") int queueCapacity,
+                          @Value("${app.auth.hash.timeout-ms:2000}") long timeoutMillis,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+
+        // 0 means one thread per core, leaving the request threads for everything else
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(size);
+        pool.setMaxPoolSize(size);
+        pool.setQueueCapacity(queueCapacity);
+        pool.setThreadNamePrefix("password-hash-");
+        pool.initialize();
+
+        encodeLatency = Timer.builder("auth.password.hash").tag("op", "encode").register(meterRegistry);
+        matchLatency = Timer.builder("auth.password.hash").tag("op", "match").register(meterRegistry);
+        queueFull = Counter.builder("auth.password.rejected").tag("reason", "queue-full").register(meterRegistry);
+        timedOut = Counter.builder("auth.password.rejected").tag("reason", "timeout").register(meterRegistry);
+        meterRegistry.gauge("auth.password.queue", pool, p -> p.getThreadPoolExecutor().getQueue().size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> encodeLatency.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> matchLatency.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (TaskRejectedException e) {
+            queueFull.increment();
+            throw busy();
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A task still queued is skipped when a worker reaches it
+            future.cancel(false);
+            timedOut.increment();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        }
+    }
+
+    private static TooManyRequestsException busy() {
+        log.warn("Password hashing pool is saturated, rejecting request");
+        return new TooManyRequestsException("The server is busy. Please try again in a moment.", RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,121 @@
+package com.lendtracker.security;
+
+import com.lendtracker.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of the User loaded for each authenticated request.
+ *
+ * The cache keeps a detached snapshot and every request gets its own copy, so
+ * a request that modifies its principal cannot change what later requests see.
+ * Services that write any column of a user must call {@link #invalidate(Long)}
+ * so the next request reloads the row. Inside a transaction the entry is
+ * dropped again after commit, so a request that re-cached the old row in the
+ * meantime does not keep it for the rest of the TTL.
+ * Hit/miss counts are published as auth.user.cache{result=hit|miss}.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private record Entry(User user, long expiresAtNanos) {}
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserPrincipalCache(@Value("${app.auth.user-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${app.auth.user-cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("auth.user.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.user.cache").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("auth.user.cache.size", entries, Map::size);
+    }
+
+    /**
+     * A copy of the cached user for the id, or of the loader's result (cached if non-null).
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return copyOf(entry.user());
+        }
+
+        misses.increment();
+        User user = loader.apply(userId);
+        if (user == null) {
+            entries.remove(userId);
+            return null;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        User snapshot = copyOf(user);
+        entries.put(userId, new Entry(snapshot, now + ttlNanos));
+        return copyOf(snapshot);
+    }
+
+    /** Drop the user now and, inside a transaction, once more after it commits. */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    // Scalar columns only; the lazy loans collection is never read from a principal
+    private static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .phone(user.getPhone())
+                .profilePhoto(user.getProfilePhoto())
+                .role(user.getRole())
+                .active(user.getActive())
+                .emailVerified(user.getEmailVerified())
+                .verificationOtp(user.getVerificationOtp())
+                .otpExpiryTime(user.getOtpExpiryTime())
+                .createdAt(user.getCreatedAt())
+                .lastLoginAt(user.getLastLoginAt())
+                .build();
+    }
+
+    // Drop expired entries; if still full, drop arbitrary ones until there is room
+    private void evict(long now) {
+        entries.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+        Iterator<Long> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
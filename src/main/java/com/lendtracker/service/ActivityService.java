@@ -0,0 +1,256 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.ActivityCursor;
+import com.lendtracker.dto.CursorPage;
+import com.lendtracker.entity.ActivityEvent;
+import com.lendtracker.entity.ActivityEvent.ActivityType;
+import com.lendtracker.entity.BackfillProgress;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.ActivityEventRepository;
+import com.lendtracker.repository.BackfillProgressRepository;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes and reads the append-only activity feed.
+ *
+ * LoanService and AuthService call the record methods inside their own
+ * transactions, so an event exists exactly when the change it describes was
+ * committed. The admin feed is then a top-N read of activity_events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityService {
+
+    private static final int DEFAULT_FEED_SIZE = 20;
+    private static final int MAX_FEED_SIZE = 200;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final String BACKFILL = "activity-feed";
+    // A plain INSERT, so an instance that loses the race gets a duplicate key rather than
+    // merging over the winner's progress; the end ids fix the rows that existed at the start
+    private static final String INSERT_PROGRESS_SQL =
+            "INSERT INTO backfill_progress (name, last_user_id, last_loan_id, end_user_id, end_loan_id, completed) " +
+            "VALUES (?, 0, 0, (SELECT COALESCE(MAX(id), 0) FROM users), (SELECT COALESCE(MAX(id), 0) FROM loans), ?)";
+
+    private final ActivityEventRepository activityEventRepository;
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+    private final BackfillProgressRepository backfillProgressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    // ==================== RECORDING ====================
+
+    @Transactional
+    public void userRegistered(User user) {
+        activityEventRepository.save(event(ActivityType.USER_REGISTERED, user,
+                user.getName() + " registered").build());
+    }
+
+    @Transactional
+    public void loanCreated(User user, Loan loan) {
+        activityEventRepository.save(event(ActivityType.LOAN_CREATED, user,
+                "Loan of ₹" + loan.getPrincipalAmount() + " to " + loan.getBorrowerName())
+                .loanId(loan.getId())
+                .amount(loan.getPrincipalAmount())
+                .build());
+    }
+
+    @Transactional
+    public void loansImported(User user, int loanCount, BigDecimal totalPrincipal) {
+        activityEventRepository.save(event(ActivityType.LOANS_IMPORTED, user,
+                loanCount + " loans totalling ₹" + totalPrincipal + " imported")
+                .amount(totalPrincipal)
+                .build());
+    }
+
+    @Transactional
+    public void loanStatusChanged(User user, Loan loan, Loan.LoanStatus previousStatus) {
+        activityEventRepository.save(event(ActivityType.LOAN_STATUS_CHANGED, user,
+                "Loan to " + loan.getBorrowerName() + " changed from " + previousStatus + " to " + loan.getStatus())
+                .loanId(loan.getId())
+                .build());
+    }
+
+    @Transactional
+    public void loanDeleted(User user, Loan loan) {
+        activityEventRepository.save(event(ActivityType.LOAN_DELETED, user,
+                "Loan of ₹" + loan.getPrincipalAmount() + " to " + loan.getBorrowerName() + " deleted")
+                .loanId(loan.getId())
+                .build());
+    }
+
+    @Transactional
+    public void paymentRecorded(User user, Loan loan, PaymentHistory.PaymentType paymentType, BigDecimal amount) {
+        String kind = paymentType == PaymentHistory.PaymentType.INTEREST ? "Interest" : "Principal";
+        activityEventRepository.save(event(ActivityType.PAYMENT_RECORDED, user,
+                kind + " of ₹" + amount + " received from " + loan.getBorrowerName())
+                .loanId(loan.getId())
+                .amount(amount)
+                .build());
+    }
+
+    @Transactional
+    public void paymentsRecorded(User user, int paymentCount, BigDecimal total) {
+        activityEventRepository.save(event(ActivityType.PAYMENT_RECORDED, user,
+                paymentCount + " payments totalling ₹" + total + " recorded in a batch")
+                .amount(total)
+                .build());
+    }
+
+    private static ActivityEvent.ActivityEventBuilder event(ActivityType type, User user, String message) {
+        return ActivityEvent.builder()
+                .type(type)
+                .message(message)
+                .userId(user.getId())
+                .userName(user.getName())
+                .userEmail(user.getEmail());
+    }
+
+    // ==================== FEED ====================
+
+    /**
+     * One page of the feed, newest first. The cursor is the value returned as
+     * nextCursor by the previous page; null starts from the newest event.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getFeed(String cursor, Integer limit) {
+        ActivityCursor before = ActivityCursor.parse(cursor);
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_FEED_SIZE : Math.min(limit, MAX_FEED_SIZE);
+
+        List<ActivityEvent> rows = activityEventRepository.findRecentBefore(
+                before != null ? before.timestamp() : null,
+                before != null ? before.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ActivityEvent last = rows.get(pageSize - 1);
+            nextCursor = new ActivityCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        List<Map<String, Object>> items = rows.stream()
+                .map(ActivityService::toDto)
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    private static Map<String, Object> toDto(ActivityEvent event) {
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("id", event.getId());
+        activity.put("type", event.getType().name());
+        activity.put("message", event.getMessage());
+        activity.put("user", event.getUserName());
+        activity.put("email", event.getUserEmail());
+        activity.put("loanId", event.getLoanId());
+        activity.put("amount", event.getAmount());
+        activity.put("timestamp", event.getCreatedAt());
+        return activity;
+    }
+
+    // ==================== BACKFILL ====================
+
+    /**
+     * Seeds the feed from existing users and loans the first time the
+     * application starts with an empty activity_events table.
+     *
+     * The work is tracked in a backfill_progress row and done in chunks of
+     * BACKFILL_BATCH_SIZE ids, each in its own short transaction and
+     * persistence context. Instances starting together take turns on the
+     * row lock instead of writing the same events twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!startBackfill()) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int events = 0;
+        Integer written;
+        while ((written = tx.execute(status -> backfillChunk())) != null) {
+            events += written;
+        }
+        if (events > 0) {
+            log.info("Backfilled {} activity events from existing users and loans", events);
+        }
+    }
+
+    // True while the backfill has work left; creates its progress row on the first start
+    private boolean startBackfill() {
+        BackfillProgress progress = backfillProgressRepository.findById(BACKFILL).orElse(null);
+        if (progress != null) {
+            return !progress.isCompleted();
+        }
+        // A feed that already has events was live before backfills were tracked
+        boolean completed = activityEventRepository.count() > 0;
+        try {
+            jdbcTemplate.update(INSERT_PROGRESS_SQL, BACKFILL, completed);
+        } catch (DuplicateKeyException e) {
+            // Another instance created it first; share its progress
+            return true;
+        }
+        return !completed;
+    }
+
+    // One chunk of users, then of loans, after the recorded position; null once all are written
+    private Integer backfillChunk() {
+        BackfillProgress progress = backfillProgressRepository.findByNameForUpdate(BACKFILL).orElseThrow();
+        if (progress.isCompleted()) {
+            return null;
+        }
+        List<ActivityEvent> batch = new ArrayList<>();
+        List<User> users = userRepository.findIdRange(progress.getLastUserId(), progress.getEndUserId(),
+                PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        if (!users.isEmpty()) {
+            for (User user : users) {
+                if (user.getCreatedAt() != null) {
+                    batch.add(event(ActivityType.USER_REGISTERED, user, user.getName() + " registered")
+                            .createdAt(user.getCreatedAt())
+                            .build());
+                }
+            }
+            progress.setLastUserId(users.get(users.size() - 1).getId());
+        } else {
+            List<Loan> loans = loanRepository.findIdRangeWithUser(progress.getLastLoanId(), progress.getEndLoanId(),
+                    PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (loans.isEmpty()) {
+                progress.setCompleted(true);
+                return 0;
+            }
+            for (Loan loan : loans) {
+                if (loan.getCreatedAt() != null) {
+                    batch.add(event(ActivityType.LOAN_CREATED, loan.getUser(),
+                            "Loan of ₹" + loan.getPrincipalAmount() + " to " + loan.getBorrowerName())
+                            .loanId(loan.getId())
+                            .amount(loan.getPrincipalAmount())
+                            // Loans only record the creation date
+                            .createdAt(loan.getCreatedAt().atStartOfDay())
+                            .build());
+                }
+            }
+            progress.setLastLoanId(loans.get(loans.size() - 1).getId());
+        }
+        activityEventRepository.saveAll(batch);
+        return batch.size();
+    }
+}
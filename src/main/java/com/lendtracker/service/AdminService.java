@@ -1,14 +1,24 @@
 package com.lendtracker.service;
 
+import com.lendtracker.dto.CursorPage;
 import com.lendtracker.entity.Loan;
 import com.lendtracker.entity.User;
 import com.lendtracker.repository.LoanRepository;
 import com.lendtracker.repository.UserRepository;
+import com.lendtracker.repository.projection.DailyCount;
+import com.lendtracker.repository.projection.LoanFrequencySummary;
+import com.lendtracker.repository.projection.LoanStatusSummary;
+import com.lendtracker.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,13 +29,46 @@ public class AdminService {
 
     private final UserRepository userRepository;
     private final LoanRepository loanRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ActivityService activityService;
 
     // ==================== USER MANAGEMENT ====================
 
+    private static final Set<String> USER_SORT_PROPERTIES =
+            Set.of("id", "name", "email", "createdAt", "lastLoginAt", "loanCount", "totalLent");
+    private static final int MAX_USER_PAGE_SIZE = 200;
+
     public List<Map<String, Object>> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapUserToDto)
-                .collect(Collectors.toList());
+        return getUsers(Pageable.unpaged()).getContent();
+    }
+
+    /**
+     * Users with their loan count and total lent, one page at a time.
+     * Sorting is limited to USER_SORT_PROPERTIES (unknown properties fall back to id).
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getUsers(int page, int size, String sort, String direction) {
+        String property = USER_SORT_PROPERTIES.contains(sort) ? sort : "id";
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        int pageSize = Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+        return getUsers(PageRequest.of(Math.max(page, 0), pageSize, Sort.by(sortDirection, property)));
+    }
+
+    private Page<Map<String, Object>> getUsers(Pageable pageable) {
+        return userRepository.findAllWithLoanTotals(pageable).map(u -> {
+            Map<String, Object> dto = new HashMap<>();
+            dto.put("id", u.getId());
+            dto.put("name", u.getName());
+            dto.put("email", u.getEmail());
+            dto.put("phone", u.getPhone());
+            dto.put("role", u.getRole().name());
+            dto.put("active", u.getActive());
+            dto.put("createdAt", u.getCreatedAt());
+            dto.put("lastLoginAt", u.getLastLoginAt());
+            dto.put("loanCount", u.getLoanCount());
+            dto.put("totalLent", u.getTotalLent());
+            return dto;
+        });
     }
 
     public Map<String, Object> getUserDetails(Long userId) {
@@ -34,13 +77,20 @@ public class AdminService {
         
         Map<String, Object> details = mapUserToDto(user);
         
-        // Add loan statistics
-        List<Loan> userLoans = loanRepository.findByUser(user);
-        details.put("totalLoans", userLoans.size());
-        details.put("activeLoans", userLoans.stream().filter(l -> l.getStatus() == Loan.LoanStatus.ACTIVE).count());
-        details.put("totalLentAmount", userLoans.stream()
-                .map(Loan::getPrincipalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        // Add loan statistics from one aggregate query
+        long totalLoans = 0;
+        long activeLoans = 0;
+        BigDecimal totalLent = BigDecimal.ZERO;
+        for (LoanStatusSummary summary : loanRepository.summarizeByStatus(user)) {
+            totalLoans += summary.getLoanCount();
+            totalLent = totalLent.add(orZero(summary.getPrincipalTotal()));
+            if (summary.getStatus() == Loan.LoanStatus.ACTIVE) {
+                activeLoans = summary.getLoanCount();
+            }
+        }
+        details.put("totalLoans", totalLoans);
+        details.put("activeLoans", activeLoans);
+        details.put("totalLentAmount", totalLent);
         
         return details;
     }
@@ -56,6 +106,7 @@ public class AdminService {
         
         user.setActive(!user.getActive());
         userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
     }
 
     @Transactional
@@ -64,6 +115,7 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setRole(User.Role.ADMIN);
         userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
     }
 
     @Transactional
@@ -72,61 +124,65 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setRole(User.Role.USER);
         userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
     }
 
     // ==================== SYSTEM STATISTICS ====================
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getSystemStats() {
         Map<String, Object> stats = new HashMap<>();
-        
-        List<User> allUsers = userRepository.findAll();
-        List<Loan> allLoans = loanRepository.findAll();
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
         
         // User stats
-        stats.put("totalUsers", allUsers.size());
-        stats.put("activeUsers", allUsers.stream().filter(u -> Boolean.TRUE.equals(u.getActive())).count());
-        stats.put("adminUsers", allUsers.stream().filter(User::isAdmin).count());
-        stats.put("newUsersToday", allUsers.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().toLocalDate().equals(LocalDateTime.now().toLocalDate()))
-                .count());
-        stats.put("newUsersThisWeek", allUsers.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(LocalDateTime.now().minusWeeks(1)))
-                .count());
-        stats.put("newUsersThisMonth", allUsers.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(LocalDateTime.now().minusMonths(1)))
-                .count());
+        stats.put("totalUsers", userRepository.count());
+        stats.put("activeUsers", userRepository.countByActiveTrue());
+        stats.put("adminUsers", userRepository.countByRole(User.Role.ADMIN));
+        stats.put("newUsersToday", userRepository.countByCreatedAtGreaterThanEqual(today.atStartOfDay()));
+        stats.put("newUsersThisWeek", userRepository.countByCreatedAtGreaterThanEqual(now.minusWeeks(1)));
+        stats.put("newUsersThisMonth", userRepository.countByCreatedAtGreaterThanEqual(now.minusMonths(1)));
         
-        // Loan stats
-        stats.put("totalLoans", allLoans.size());
-        stats.put("activeLoans", allLoans.stream().filter(l -> l.getStatus() == Loan.LoanStatus.ACTIVE).count());
-        stats.put("closedLoans", allLoans.stream().filter(l -> l.getStatus() == Loan.LoanStatus.CLOSED).count());
-        stats.put("defaultedLoans", allLoans.stream().filter(l -> l.getStatus() == Loan.LoanStatus.DEFAULTED).count());
+        // Loan and financial stats, one row per status
+        long totalLoans = 0;
+        long activeLoans = 0;
+        long closedLoans = 0;
+        long defaultedLoans = 0;
+        BigDecimal totalLentOut = BigDecimal.ZERO;
+        BigDecimal totalInterestReceived = BigDecimal.ZERO;
+        BigDecimal totalPrincipalReceived = BigDecimal.ZERO;
+        double rateTotal = 0.0;
         
-        // Financial stats
-        BigDecimal totalLentOut = allLoans.stream()
-                .map(Loan::getPrincipalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalLentOut", totalLentOut);
+        for (LoanStatusSummary summary : loanRepository.summarizeAllByStatus()) {
+            long count = summary.getLoanCount();
+            totalLoans += count;
+            switch (summary.getStatus()) {
+                case ACTIVE -> activeLoans = count;
+                case CLOSED -> closedLoans = count;
+                case DEFAULTED -> defaultedLoans = count;
+            }
+            totalLentOut = totalLentOut.add(orZero(summary.getPrincipalTotal()));
+            totalInterestReceived = totalInterestReceived.add(orZero(summary.getInterestReceived()));
+            totalPrincipalReceived = totalPrincipalReceived.add(orZero(summary.getPrincipalReceived()));
+            if (summary.getAverageInterestRate() != null) {
+                rateTotal += summary.getAverageInterestRate() * count;
+            }
+        }
         
-        BigDecimal totalInterestReceived = allLoans.stream()
-                .map(l -> l.getTotalInterestReceived() != null ? l.getTotalInterestReceived() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        stats.put("totalLoans", totalLoans);
+        stats.put("activeLoans", activeLoans);
+        stats.put("closedLoans", closedLoans);
+        stats.put("defaultedLoans", defaultedLoans);
+        stats.put("totalLentOut", totalLentOut);
         stats.put("totalInterestReceived", totalInterestReceived);
-        
-        BigDecimal totalPrincipalReceived = allLoans.stream()
-                .map(l -> l.getTotalPrincipalReceived() != null ? l.getTotalPrincipalReceived() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("totalPrincipalReceived", totalPrincipalReceived);
         
         // Average stats
-        if (!allLoans.isEmpty()) {
-            double avgInterestRate = allLoans.stream()
-                    .mapToDouble(Loan::getInterestRate)
-                    .average()
-                    .orElse(0.0);
+        if (totalLoans > 0) {
+            double avgInterestRate = rateTotal / totalLoans;
             stats.put("averageInterestRate", Math.round(avgInterestRate * 100.0) / 100.0);
             
-            BigDecimal avgLoanAmount = totalLentOut.divide(BigDecimal.valueOf(allLoans.size()), 2, java.math.RoundingMode.HALF_UP);
+            BigDecimal avgLoanAmount = totalLentOut.divide(BigDecimal.valueOf(totalLoans), 2, java.math.RoundingMode.HALF_UP);
             stats.put("averageLoanAmount", avgLoanAmount);
         } else {
             stats.put("averageInterestRate", 0.0);
@@ -134,38 +190,35 @@ public class AdminService {
         }
         
         // Top users by loan count
-        Map<User, Long> userLoanCounts = allLoans.stream()
-                .collect(Collectors.groupingBy(Loan::getUser, Collectors.counting()));
-        
-        List<Map<String, Object>> topUsers = userLoanCounts.entrySet().stream()
-                .sorted(Map.Entry.<User, Long>comparingByValue().reversed())
-                .limit(5)
-                .map(e -> {
+        List<Map<String, Object>> topUsers = loanRepository.findTopUsersByLoanCount(PageRequest.of(0, 5)).stream()
+                .map(u -> {
                     Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("name", e.getKey().getName());
-                    userMap.put("email", e.getKey().getEmail());
-                    userMap.put("loanCount", e.getValue());
+                    userMap.put("name", u.getName());
+                    userMap.put("email", u.getEmail());
+                    userMap.put("loanCount", u.getLoanCount());
                     return userMap;
                 })
                 .collect(Collectors.toList());
         stats.put("topUsersByLoans", topUsers);
         
         // Loans by frequency
-        Map<String, Long> loansByFrequency = allLoans.stream()
-                .collect(Collectors.groupingBy(l -> l.getInterestFrequency().name(), Collectors.counting()));
+        Map<String, Long> loansByFrequency = new HashMap<>();
+        for (LoanFrequencySummary summary : loanRepository.summarizeAllByFrequency()) {
+            loansByFrequency.put(summary.getFrequency().name(), summary.getLoanCount());
+        }
         stats.put("loansByFrequency", loansByFrequency);
         
-        // User growth data (last 7 days)
+        // User growth data (last 7 days), zero-filled for days without signups
+        LocalDate firstDay = today.minusDays(6);
+        Map<LocalDate, Long> signupsByDay = new HashMap<>();
+        for (DailyCount day : userRepository.countSignupsByDaySince(firstDay.atStartOfDay())) {
+            signupsByDay.put(day.getCreatedDate(), day.getCreatedCount());
+        }
         List<Map<String, Object>> userGrowth = new ArrayList<>();
-        for (int i = 6; i >= 0; i--) {
-            LocalDateTime date = LocalDateTime.now().minusDays(i);
-            long count = allUsers.stream()
-                    .filter(u -> u.getCreatedAt() != null && 
-                            u.getCreatedAt().toLocalDate().equals(date.toLocalDate()))
-                    .count();
+        for (LocalDate date = firstDay; !date.isAfter(today); date = date.plusDays(1)) {
             Map<String, Object> dayData = new HashMap<>();
-            dayData.put("date", date.toLocalDate().toString());
-            dayData.put("count", count);
+            dayData.put("date", date.toString());
+            dayData.put("count", signupsByDay.getOrDefault(date, 0L));
             userGrowth.add(dayData);
         }
         stats.put("userGrowthLast7Days", userGrowth);
@@ -173,51 +226,19 @@ public class AdminService {
         return stats;
     }
 
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
     // ==================== RECENT ACTIVITY ====================
 
     public List<Map<String, Object>> getRecentActivity(int limit) {
-        List<Map<String, Object>> activities = new ArrayList<>();
-        
-        // Get recent user registrations
-        List<User> recentUsers = userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null)
-                .sorted(Comparator.comparing(User::getCreatedAt).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
-        
-        for (User user : recentUsers) {
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("type", "USER_REGISTERED");
-            activity.put("message", user.getName() + " registered");
-            activity.put("email", user.getEmail());
-            activity.put("timestamp", user.getCreatedAt());
-            activities.add(activity);
-        }
-        
-        // Get recent loans
-        List<Loan> recentLoans = loanRepository.findAll().stream()
-                .filter(l -> l.getCreatedAt() != null)
-                .sorted(Comparator.comparing(Loan::getCreatedAt).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
-        
-        for (Loan loan : recentLoans) {
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("type", "LOAN_CREATED");
-            activity.put("message", "Loan of ₹" + loan.getPrincipalAmount() + " to " + loan.getBorrowerName());
-            activity.put("user", loan.getUser().getName());
-            activity.put("timestamp", loan.getCreatedAt());
-            activities.add(activity);
-        }
-        
-        // Sort all activities by timestamp
-        activities.sort((a, b) -> {
-            LocalDateTime timeA = (LocalDateTime) a.get("timestamp");
-            LocalDateTime timeB = (LocalDateTime) b.get("timestamp");
-            return timeB.compareTo(timeA);
-        });
-        
-        return activities.stream().limit(limit).collect(Collectors.toList());
+        return getRecentActivity(null, limit).getItems();
+    }
+
+    // Newest first from the activity_events stream; see ActivityService
+    public CursorPage<Map<String, Object>> getRecentActivity(String cursor, Integer limit) {
+        return activityService.getFeed(cursor, limit);
     }
 
     // ==================== HELPER METHODS ====================
@@ -233,13 +254,6 @@ public class AdminService {
         dto.put("createdAt", user.getCreatedAt());
         dto.put("lastLoginAt", user.getLastLoginAt());
         
-        // Add loan count
-        List<Loan> loans = loanRepository.findByUser(user);
-        dto.put("loanCount", loans.size());
-        dto.put("totalLent", loans.stream()
-                .map(Loan::getPrincipalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        
         return dto;
     }
 }
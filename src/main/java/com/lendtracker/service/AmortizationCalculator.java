@@ -0,0 +1,234 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.entity.Loan;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds amortization schedules.
+ *
+ * Money is handled as long paise and the periodic rate as a long in units of
+ * 1e-9, so the per-period loop is integer multiply/divide with half-up
+ * rounding. BigInteger is only used if a product would overflow. The
+ * reducing-balance installment (EMI) is derived once per schedule with
+ * BigDecimal, and the last period absorbs any rounding residue so the
+ * principal column always sums to the loan amount. Sums are checked, so a
+ * schedule whose amounts outgrow long paise (a long compound schedule at a
+ * high rate) throws ArithmeticException instead of wrapping around.
+ */
+public final class AmortizationCalculator {
+
+    public enum Method {
+        // Interest on the original principal every period, principal repaid at the end
+        SIMPLE,
+        // Interest added to the balance every period, everything repaid at the end
+        COMPOUND,
+        // Equal installments of interest on the outstanding balance plus principal
+        REDUCING_BALANCE
+    }
+
+    public static final int MAX_PERIODS = 10_000;
+
+    static final long RATE_SCALE = 1_000_000_000L;
+    private static final BigInteger RATE_SCALE_BIG = BigInteger.valueOf(RATE_SCALE);
+
+    private AmortizationCalculator() {
+    }
+
+    public static int periodsPerYear(Loan.InterestFrequency frequency) {
+        return switch (frequency) {
+            case DAILY -> 365;
+            case WEEKLY -> 52;
+            case BIWEEKLY -> 26;
+            case MONTHLY -> 12;
+            case QUARTERLY -> 4;
+            case YEARLY -> 1;
+        };
+    }
+
+    public static LocalDate dueDate(LocalDate start, Loan.InterestFrequency frequency, long period) {
+        return switch (frequency) {
+            case DAILY -> start.plusDays(period);
+            case WEEKLY -> start.plusWeeks(period);
+            case BIWEEKLY -> start.plusWeeks(2 * period);
+            case MONTHLY -> start.plusMonths(period);
+            case QUARTERLY -> start.plusMonths(3 * period);
+            case YEARLY -> start.plusYears(period);
+        };
+    }
+
+    /**
+     * Number of periods from start until the first due date on or after end,
+     * at least 1 and at most MAX_PERIODS.
+     */
+    public static int periodsUntil(LocalDate start, LocalDate end, Loan.InterestFrequency frequency) {
+        return (int) Math.min(firstPeriodOnOrAfter(start, end, frequency), MAX_PERIODS);
+    }
+
+    /**
+     * Smallest period number k >= 1 whose due date is on or after date. Starts
+     * from the whole-unit distance so long-running daily loans do not walk
+     * every period since the lend date.
+     */
+    public static long firstPeriodOnOrAfter(LocalDate start, LocalDate date, Loan.InterestFrequency frequency) {
+        long elapsed = switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(start, date);
+            case WEEKLY -> ChronoUnit.WEEKS.between(start, date);
+            case BIWEEKLY -> ChronoUnit.WEEKS.between(start, date) / 2;
+            case MONTHLY -> ChronoUnit.MONTHS.between(start, date);
+            case QUARTERLY -> ChronoUnit.MONTHS.between(start, date) / 3;
+            case YEARLY -> ChronoUnit.YEARS.between(start, date);
+        };
+        long period = Math.max(1, elapsed);
+        while (dueDate(start, frequency, period).isBefore(date)) {
+            period++;
+        }
+        return period;
+    }
+
+    /** Annual percentage rate converted to a per-period rate scaled by RATE_SCALE. */
+    static long periodicRate(double annualRatePercent, Loan.InterestFrequency frequency) {
+        return BigDecimal.valueOf(annualRatePercent)
+                .movePointRight(7) // percent -> fraction (-2), then * 1e9 (+9)
+                .divide(BigDecimal.valueOf(periodsPerYear(frequency)), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public static AmortizationSchedule compute(Long loanId, BigDecimal principal, double annualRatePercent,
+                                               LocalDate start, Loan.InterestFrequency frequency,
+                                               Method method, int periods) {
+        if (periods < 1 || periods > MAX_PERIODS) {
+            throw new IllegalArgumentException("periods must be between 1 and " + MAX_PERIODS);
+        }
+        long principalPaise = principal.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        long rate = periodicRate(annualRatePercent, frequency);
+
+        long[] opening = new long[periods];
+        long[] interest = new long[periods];
+        long[] repaid = new long[periods];
+        long[] payment = new long[periods];
+        long[] closing = new long[periods];
+        switch (method) {
+            case SIMPLE -> simple(principalPaise, rate, opening, interest, repaid, payment, closing);
+            case COMPOUND -> compound(principalPaise, rate, opening, interest, repaid, payment, closing);
+            case REDUCING_BALANCE -> reducing(principalPaise, rate, opening, interest, repaid, payment, closing);
+        }
+
+        long totalInterest = 0;
+        long totalPayment = 0;
+        List<AmortizationSchedule.Entry> entries = new ArrayList<>(periods);
+        for (int i = 0; i < periods; i++) {
+            totalInterest = Math.addExact(totalInterest, interest[i]);
+            totalPayment = Math.addExact(totalPayment, payment[i]);
+            entries.add(new AmortizationSchedule.Entry(
+                    i + 1,
+                    dueDate(start, frequency, i + 1),
+                    money(opening[i]),
+                    money(interest[i]),
+                    money(repaid[i]),
+                    money(payment[i]),
+                    money(closing[i])));
+        }
+
+        return AmortizationSchedule.builder()
+                .loanId(loanId)
+                .method(method.name())
+                .frequency(frequency.name())
+                .periods(periods)
+                .periodicRate(BigDecimal.valueOf(rate, 7).stripTrailingZeros())
+                .principal(money(principalPaise))
+                .totalInterest(money(totalInterest))
+                .totalPayment(money(totalPayment))
+                .entries(List.copyOf(entries))
+                .build();
+    }
+
+    private static void simple(long principal, long rate, long[] opening, long[] interest,
+                               long[] repaid, long[] payment, long[] closing) {
+        int last = opening.length - 1;
+        long periodInterest = applyRate(principal, rate);
+        for (int i = 0; i <= last; i++) {
+            opening[i] = principal;
+            interest[i] = periodInterest;
+            payment[i] = periodInterest;
+            closing[i] = principal;
+        }
+        repaid[last] = principal;
+        payment[last] = Math.addExact(payment[last], principal);
+        closing[last] = 0;
+    }
+
+    private static void compound(long principal, long rate, long[] opening, long[] interest,
+                                 long[] repaid, long[] payment, long[] closing) {
+        int last = opening.length - 1;
+        long balance = principal;
+        for (int i = 0; i <= last; i++) {
+            opening[i] = balance;
+            interest[i] = applyRate(balance, rate);
+            balance = Math.addExact(balance, interest[i]);
+            closing[i] = balance;
+        }
+        repaid[last] = principal;
+        payment[last] = balance;
+        closing[last] = 0;
+    }
+
+    private static void reducing(long principal, long rate, long[] opening, long[] interest,
+                                 long[] repaid, long[] payment, long[] closing) {
+        int last = opening.length - 1;
+        long installment = installment(principal, rate, opening.length);
+        long balance = principal;
+        for (int i = 0; i <= last; i++) {
+            opening[i] = balance;
+            interest[i] = applyRate(balance, rate);
+            long principalPart = i == last ? balance : Math.min(balance, installment - interest[i]);
+            if (principalPart < 0) {
+                principalPart = 0;
+            }
+            repaid[i] = principalPart;
+            payment[i] = Math.addExact(interest[i], principalPart);
+            balance -= principalPart;
+            closing[i] = balance;
+        }
+    }
+
+    /** EMI = P * r * (1 + r)^n / ((1 + r)^n - 1), rounded half-up to the paisa. */
+    static long installment(long principal, long rate, int periods) {
+        if (rate == 0) {
+            return (principal + periods - 1) / periods;
+        }
+        MathContext mc = MathContext.DECIMAL128;
+        BigDecimal r = BigDecimal.valueOf(rate, 9);
+        BigDecimal growth = BigDecimal.ONE.add(r).pow(periods, mc);
+        return BigDecimal.valueOf(principal)
+                .multiply(r, mc)
+                .multiply(growth, mc)
+                .divide(growth.subtract(BigDecimal.ONE), mc)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /** amount * rate / RATE_SCALE, rounded half-up, for non-negative amounts. */
+    static long applyRate(long amount, long rate) {
+        try {
+            return Math.addExact(Math.multiplyExact(amount, rate), RATE_SCALE / 2) / RATE_SCALE;
+        } catch (ArithmeticException overflow) {
+            return BigInteger.valueOf(amount).multiply(BigInteger.valueOf(rate))
+                    .add(BigInteger.valueOf(RATE_SCALE / 2))
+                    .divide(RATE_SCALE_BIG)
+                    .longValueExact();
+        }
+    }
+
+    private static BigDecimal money(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+}
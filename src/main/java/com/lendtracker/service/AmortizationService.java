@@ -0,0 +1,128 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidScheduleException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Amortization schedules for a user's loans.
+ *
+ * Schedules are memoized in an LRU keyed by every input that affects the
+ * result, so editing a loan simply produces a new key and the old entry ages
+ * out; no explicit invalidation is needed. The cache is bounded by the total
+ * periods it holds (app.schedule.cache-max-periods), as one schedule can have
+ * up to MAX_PERIODS entries.
+ */
+@Service
+public class AmortizationService {
+
+    private final LoanService loanService;
+    private final long maxCachedPeriods;
+    // Access-ordered; guarded by its own monitor together with cachedPeriods
+    private final Map<ScheduleKey, AmortizationSchedule> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPeriods;
+
+    public AmortizationService(LoanService loanService,
+                               @Value("${app.schedule.cache-max-periods:100000}") long maxCachedPeriods) {
+        this.loanService = loanService;
+        this.maxCachedPeriods = maxCachedPeriods;
+    }
+
+    /**
+     * Schedule for the loan's original principal. Without an explicit period
+     * count the schedule runs until the loan's due date, or for one year when
+     * the loan has none.
+     */
+    public AmortizationSchedule getSchedule(Long loanId, User user, String method, Integer periods) {
+        Loan loan = loanService.getLoanById(loanId, user);
+        AmortizationCalculator.Method resolvedMethod = parseMethod(method);
+        Loan.InterestFrequency frequency = loan.getInterestFrequency() != null
+                ? loan.getInterestFrequency() : Loan.InterestFrequency.MONTHLY;
+        int resolvedPeriods = resolvePeriods(loan, frequency, periods);
+
+        ScheduleKey key = new ScheduleKey(loan.getId(), loan.getPrincipalAmount(), loan.getInterestRate(),
+                loan.getLendDate(), frequency, resolvedMethod, resolvedPeriods);
+        AmortizationSchedule cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        // Computed outside the lock; two racing requests at worst compute the same schedule twice
+        AmortizationSchedule schedule;
+        try {
+            schedule = AmortizationCalculator.compute(loan.getId(), loan.getPrincipalAmount(),
+                    loan.getInterestRate(), loan.getLendDate(), frequency, resolvedMethod, resolvedPeriods);
+        } catch (ArithmeticException overflow) {
+            throw new InvalidScheduleException("Schedule amounts grow too large over " + resolvedPeriods
+                    + " periods; request fewer periods");
+        }
+        put(key, schedule);
+        return schedule;
+    }
+
+    private void put(ScheduleKey key, AmortizationSchedule schedule) {
+        if (schedule.getPeriods() > maxCachedPeriods) {
+            return;
+        }
+        synchronized (cache) {
+            AmortizationSchedule previous = cache.put(key, schedule);
+            cachedPeriods += schedule.getPeriods() - (previous != null ? previous.getPeriods() : 0);
+            Iterator<AmortizationSchedule> eldestFirst = cache.values().iterator();
+            while (cachedPeriods > maxCachedPeriods) {
+                cachedPeriods -= eldestFirst.next().getPeriods();
+                eldestFirst.remove();
+            }
+        }
+    }
+
+    static AmortizationCalculator.Method parseMethod(String method) {
+        if (method == null || method.isBlank()) {
+            return AmortizationCalculator.Method.SIMPLE;
+        }
+        try {
+            return AmortizationCalculator.Method.valueOf(
+                    method.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidScheduleException("Unknown schedule method: " + method
+                    + " (expected simple, compound or reducing_balance)");
+        }
+    }
+
+    private static int resolvePeriods(Loan loan, Loan.InterestFrequency frequency, Integer periods) {
+        if (periods != null) {
+            if (periods < 1 || periods > AmortizationCalculator.MAX_PERIODS) {
+                throw new InvalidScheduleException(
+                        "periods must be between 1 and " + AmortizationCalculator.MAX_PERIODS);
+            }
+            return periods;
+        }
+        if (loan.getDueDate() != null && loan.getDueDate().isAfter(loan.getLendDate())) {
+            return AmortizationCalculator.periodsUntil(loan.getLendDate(), loan.getDueDate(), frequency);
+        }
+        return AmortizationCalculator.periodsPerYear(frequency);
+    }
+
+    int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // BigDecimal.equals is scale-sensitive; a scale change only costs a cache miss
+    private record ScheduleKey(Long loanId, BigDecimal principal, Double interestRate, LocalDate lendDate,
+                               Loan.InterestFrequency frequency, AmortizationCalculator.Method method,
+                               int periods) {
+    }
+}
@@ -8,18 +8,31 @@ import com.lendtracker.entity.User;
 import com.lendtracker.repository.PasswordResetTokenRepository;
 import com.lendtracker.repository.UserRepository;
 import com.lendtracker.security.JwtUtil;
+import com.lendtracker.security.PasswordHasher;
+import com.lendtracker.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Registration, login, email verification and password management.
+ *
+ * Methods that hash or check a password run outside any transaction and hand
+ * BCrypt to {@link PasswordHasher}, so a request queued behind other logins
+ * does not hold a database connection while it waits. Their writes run in
+ * short transactions of their own once the hash is known.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -28,9 +41,14 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
     private final EmailService emailService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ActivityService activityService;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final PortfolioSummaryService portfolioSummaryService;
+    private final PlatformTransactionManager transactionManager;
     
     private static final SecureRandom secureRandom = new SecureRandom();
     private static final int OTP_LENGTH = 6;
@@ -44,6 +62,7 @@ public class AuthService {
         return String.valueOf(otp);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail().toLowerCase())) {
@@ -51,15 +70,20 @@ public class AuthService {
         }
 
         // Create new user (unverified - can verify later from settings)
-        User user = User.builder()
+        User newUser = User.builder()
                 .name(request.getName())
                 .email(request.getEmail().toLowerCase())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .phone(request.getPhone())
                 .emailVerified(false)
                 .build();
 
-        user = userRepository.save(user);
+        User user = new TransactionTemplate(transactionManager).execute(status -> {
+            User saved = userRepository.save(newUser);
+            portfolioSummaryService.createEmpty(saved);
+            activityService.userRegistered(saved);
+            return saved;
+        });
 
         log.info("New user registered: {}", user.getEmail());
 
@@ -98,6 +122,7 @@ public class AuthService {
         user.setVerificationOtp(null);
         user.setOtpExpiryTime(null);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
 
         // Generate JWT token
         String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getName());
@@ -126,6 +151,7 @@ public class AuthService {
         user.setVerificationOtp(otp);
         user.setOtpExpiryTime(LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES));
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
 
         // Send verification email
         emailService.sendVerificationOtpEmail(user.getEmail(), user.getName(), otp);
@@ -138,6 +164,7 @@ public class AuthService {
                 .build();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse login(AuthRequest request) {
         // Find user by email
         User user = userRepository.findByEmail(request.getEmail().toLowerCase())
@@ -153,13 +180,12 @@ public class AuthService {
         }
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             return AuthResponse.error("Incorrect password. Please try again.");
         }
 
-        // Update last login time
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // Update last login time (written behind, so login stays read-only)
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
 
         // Generate JWT token - allow login without email verification
         String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getName());
@@ -196,6 +222,7 @@ public class AuthService {
         user.setVerificationOtp(otp);
         user.setOtpExpiryTime(LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES));
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
 
         // Send verification email
         emailService.sendVerificationOtpEmail(user.getEmail(), user.getName(), otp);
@@ -220,16 +247,48 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    public void updateUser(User user) {
-        userRepository.save(user);
+    /**
+     * Apply profile edits to the stored row. Only the fields present in the
+     * updates are written; a blank name is ignored.
+     */
+    public User updateProfile(Long userId, Map<String, String> updates) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (updates.get("name") != null && !updates.get("name").isBlank()) {
+            user.setName(updates.get("name"));
+        }
+        if (updates.containsKey("phone")) {
+            user.setPhone(updates.get("phone"));
+        }
+        if (updates.containsKey("profilePhoto")) {
+            user.setProfilePhoto(updates.get("profilePhoto"));
+        }
+
+        user = userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
+        return user;
     }
 
-    public boolean changePassword(User user, String currentPassword, String newPassword) {
-        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+    /**
+     * Check the current password against the stored hash and write the new
+     * one. Both hashes run outside a transaction; only the password column of
+     * the freshly loaded row is changed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean changePassword(Long userId, String currentPassword, String newPassword) {
+        User stored = userRepository.findById(userId).orElse(null);
+        if (stored == null || !passwordHasher.matches(currentPassword, stored.getPassword())) {
             return false;
         }
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        String encoded = passwordHasher.encode(newPassword);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            user.setPassword(encoded);
+            userRepository.save(user);
+            userPrincipalCache.invalidate(userId);
+        });
         return true;
     }
 
@@ -278,9 +337,21 @@ public class AuthService {
     }
 
     /**
-     * Reset password using token
+     * Reset password using token. The token is checked before paying for the
+     * hash, then checked again when the new password is written.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean resetPassword(String token, String newPassword) {
+        if (!validateResetToken(token)) {
+            log.warn("Password reset attempted with invalid or expired token");
+            return false;
+        }
+        String encoded = passwordHasher.encode(newPassword);
+        return Boolean.TRUE.equals(new TransactionTemplate(transactionManager)
+                .execute(status -> applyPasswordReset(token, encoded)));
+    }
+
+    private boolean applyPasswordReset(String token, String encodedPassword) {
         Optional<PasswordResetToken> tokenOpt = passwordResetTokenRepository.findByTokenAndUsedFalse(token);
         
         if (tokenOpt.isEmpty()) {
@@ -298,8 +369,9 @@ public class AuthService {
 
         // Update password
         User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(encodedPassword);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
 
         // Mark token as used
         resetToken.setUsed(true);
@@ -0,0 +1,283 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.projection.LoanSearchFields;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory trigram index over borrower name, email and phone, one per user.
+ *
+ * A user's index is loaded from the loans table on their first search and kept
+ * in sync by LoanService after each committed create/update/delete. Substring
+ * queries of three or more characters intersect trigram posting lists and then
+ * verify candidates; shorter queries scan the user's documents in memory.
+ *
+ * Memory is bounded by the total number of indexed loans across all users
+ * (app.search.max-indexed-loans): least recently searched users are dropped
+ * once the total is exceeded, and a user with more loans than the whole
+ * budget is never indexed, so search returns null and the caller falls back
+ * to a database LIKE query.
+ */
+@Component
+@Slf4j
+public class BorrowerSearchIndex {
+
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final LoanRepository loanRepository;
+    private final long maxIndexedLoans;
+    private final AtomicLong indexedLoans = new AtomicLong();
+    // Access-ordered, so iteration starts at the least recently used user
+    private final Map<Long, UserIndex> indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+
+    public BorrowerSearchIndex(LoanRepository loanRepository,
+                               @Value("${app.search.max-indexed-loans:20000}") long maxIndexedLoans) {
+        this.loanRepository = loanRepository;
+        this.maxIndexedLoans = maxIndexedLoans;
+    }
+
+    /**
+     * Ids of the user's loans whose borrower name, email or phone contains the term
+     * (case-insensitive), or null if the user has too many loans to index.
+     */
+    public Set<Long> search(User user, String term) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        UserIndex index = indexes.computeIfAbsent(user.getId(), id -> new UserIndex(indexedLoans));
+        Set<Long> result;
+        synchronized (index) {
+            if (!index.loaded) {
+                if (loanRepository.countByUser(user) > maxIndexedLoans) {
+                    indexes.remove(user.getId(), index);
+                    return null;
+                }
+                load(user, index);
+            }
+            result = index.search(needle);
+        }
+        evictOverBudget();
+        return result;
+    }
+
+    long indexedLoans() {
+        return indexedLoans.get();
+    }
+
+    public void onLoanSaved(User user, Loan loan) {
+        Long loanId = loan.getId();
+        String document = document(loan.getBorrowerName(), loan.getBorrowerEmail(), loan.getBorrowerPhone());
+        afterCommit(() -> {
+            UserIndex index = indexes.get(user.getId());
+            if (index == null) {
+                return; // not loaded yet; the first search reads committed rows
+            }
+            synchronized (index) {
+                if (index.loaded) {
+                    index.put(loanId, document);
+                }
+            }
+        });
+    }
+
+    public void onLoanDeleted(User user, Long loanId) {
+        afterCommit(() -> {
+            UserIndex index = indexes.get(user.getId());
+            if (index == null) {
+                return;
+            }
+            synchronized (index) {
+                if (index.loaded) {
+                    index.remove(loanId);
+                }
+            }
+        });
+    }
+
+    // Drop the user's index after commit; the next search reloads it (used after bulk imports)
+    public void invalidate(User user) {
+        afterCommit(() -> {
+            UserIndex index = indexes.remove(user.getId());
+            if (index != null) {
+                synchronized (index) {
+                    index.evict();
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop least recently searched users until the indexed total is back within
+     * budget. Victims are picked under the map's lock and cleared under their own,
+     * never both at once, as search holds an index's lock while touching the map.
+     */
+    private void evictOverBudget() {
+        long excess = indexedLoans.get() - maxIndexedLoans;
+        if (excess <= 0) {
+            return;
+        }
+        List<UserIndex> victims = new ArrayList<>();
+        synchronized (indexes) {
+            Iterator<UserIndex> eldestFirst = indexes.values().iterator();
+            while (excess > 0 && eldestFirst.hasNext()) {
+                UserIndex victim = eldestFirst.next();
+                eldestFirst.remove();
+                excess -= victim.size;
+                victims.add(victim);
+            }
+        }
+        for (UserIndex victim : victims) {
+            synchronized (victim) {
+                victim.evict();
+            }
+        }
+        log.debug("Evicted {} borrower search indexes; {} loans indexed", victims.size(), indexedLoans.get());
+    }
+
+    private void load(User user, UserIndex index) {
+        long start = System.nanoTime();
+        for (LoanSearchFields fields : loanRepository.findSearchFieldsByUser(user)) {
+            index.put(fields.getId(), document(fields.getBorrowerName(), fields.getBorrowerEmail(), fields.getBorrowerPhone()));
+        }
+        index.loaded = true;
+        log.debug("Loaded borrower search index for user {}: {} loans in {} ms",
+                user.getId(), index.documents.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static String document(String name, String email, String phone) {
+        StringBuilder sb = new StringBuilder();
+        if (name != null) sb.append(name.toLowerCase(Locale.ROOT));
+        sb.append(FIELD_SEPARATOR);
+        if (email != null) sb.append(email.toLowerCase(Locale.ROOT));
+        sb.append(FIELD_SEPARATOR);
+        if (phone != null) sb.append(phone.toLowerCase(Locale.ROOT));
+        return sb.toString();
+    }
+
+    private static long trigram(CharSequence text, int offset) {
+        return ((long) text.charAt(offset) << 32)
+                | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+    }
+
+    /**
+     * Documents and trigram postings for one user. Guarded by its own monitor.
+     * While it is in the map its loans count towards the shared total; once
+     * evicted it no longer does, and a search that still holds it reloads it.
+     */
+    static final class UserIndex {
+        final Map<Long, String> documents = new HashMap<>();
+        final Map<Long, Set<Long>> postings = new HashMap<>();
+        private final AtomicLong indexedLoans;
+        boolean loaded;
+        boolean evicted;
+        // Read without the monitor when choosing eviction victims
+        volatile int size;
+
+        UserIndex(AtomicLong indexedLoans) {
+            this.indexedLoans = indexedLoans;
+        }
+
+        void put(Long loanId, String document) {
+            remove(loanId);
+            documents.put(loanId, document);
+            for (int i = 0; i + 3 <= document.length(); i++) {
+                postings.computeIfAbsent(trigram(document, i), k -> new HashSet<>()).add(loanId);
+            }
+            resized();
+        }
+
+        void remove(Long loanId) {
+            String previous = documents.remove(loanId);
+            if (previous == null) {
+                return;
+            }
+            resized();
+            for (int i = 0; i + 3 <= previous.length(); i++) {
+                long key = trigram(previous, i);
+                Set<Long> ids = postings.get(key);
+                if (ids != null) {
+                    ids.remove(loanId);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+
+        void evict() {
+            if (!evicted) {
+                evicted = true;
+                indexedLoans.addAndGet(-size);
+            }
+            documents.clear();
+            postings.clear();
+            size = 0;
+            loaded = false;
+        }
+
+        private void resized() {
+            if (!evicted) {
+                indexedLoans.addAndGet(documents.size() - size);
+            }
+            size = documents.size();
+        }
+
+        Set<Long> search(String needle) {
+            Set<Long> result = new HashSet<>();
+            if (needle.length() < 3) {
+                documents.forEach((id, doc) -> {
+                    if (doc.contains(needle)) {
+                        result.add(id);
+                    }
+                });
+                return result;
+            }
+
+            List<Set<Long>> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= needle.length(); i++) {
+                Set<Long> ids = postings.get(trigram(needle, i));
+                if (ids == null) {
+                    return result;
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> smallest = lists.get(0);
+            outer:
+            for (Long id : smallest) {
+                for (int i = 1; i < lists.size(); i++) {
+                    if (!lists.get(i).contains(id)) {
+                        continue outer;
+                    }
+                }
+                // Trigram hits may be non-contiguous; confirm the substring
+                if (documents.get(id).contains(needle)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.CashFlowForecast;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidForecastException;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.projection.LoanForecastFields;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Projected interest and principal inflows across a user's active loans.
+ *
+ * Each loan is projected independently into per-bucket paise accumulators
+ * which are then merged, so large books run on a parallel stream (the common
+ * ForkJoin pool) once they reach app.forecast.parallel-threshold loans.
+ *
+ * Results are cached per user generation. LoanService and LoanImportService
+ * call invalidate() on every loan or payment change; the generation moves on
+ * after commit, so a forecast computed concurrently with a change is stored
+ * under the old generation and never served again.
+ */
+@Service
+public class CashFlowForecastService {
+
+    public enum Granularity { WEEK, MONTH }
+
+    public static final int MAX_MONTHS = 60;
+
+    private final LoanRepository loanRepository;
+    private final int parallelThreshold;
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<ForecastKey, CashFlowForecast> cache;
+
+    public CashFlowForecastService(LoanRepository loanRepository,
+                                   @Value("${app.forecast.parallel-threshold:2000}") int parallelThreshold,
+                                   @Value("${app.forecast.cache-size:500}") int cacheSize) {
+        this.loanRepository = loanRepository;
+        this.parallelThreshold = parallelThreshold;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ForecastKey, CashFlowForecast> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Forecast from today over the next months, bucketed by week or month.
+     * Interest is expected on each due date of the loan's interest frequency,
+     * charged on the outstanding principal, until the loan's due date; the
+     * outstanding principal is expected on the due date itself. Loans already
+     * past their due date keep accruing interest and their principal is
+     * reported as overdue.
+     */
+    @Transactional(readOnly = true)
+    public CashFlowForecast getForecast(User user, Integer months, String granularity) {
+        int horizon = months != null ? months : 12;
+        if (horizon < 1 || horizon > MAX_MONTHS) {
+            throw new InvalidForecastException("months must be between 1 and " + MAX_MONTHS);
+        }
+        Granularity resolved = parseGranularity(granularity);
+        LocalDate from = LocalDate.now();
+
+        ForecastKey key = new ForecastKey(user.getId(), generation(user.getId()), from, resolved, horizon);
+        CashFlowForecast cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<LoanForecastFields> loans = loanRepository.findForecastFieldsByUser(user, Loan.LoanStatus.ACTIVE);
+        CashFlowForecast forecast = project(loans, from, horizon, resolved, parallelThreshold);
+        cache.put(key, forecast);
+        return forecast;
+    }
+
+    /** Drop the user's cached forecasts once the current transaction commits. */
+    public void invalidate(User user) {
+        Long userId = user.getId();
+        Runnable bump = () -> generations.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    static CashFlowForecast project(List<LoanForecastFields> loans, LocalDate from, int months,
+                                    Granularity granularity, int parallelThreshold) {
+        LocalDate to = from.plusMonths(months);
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = from; start.isBefore(to); start = next(from, granularity, starts.size())) {
+            starts.add(start);
+        }
+        long[] startDays = starts.stream().mapToLong(LocalDate::toEpochDay).toArray();
+
+        Stream<LoanForecastFields> stream = loans.size() >= parallelThreshold ? loans.parallelStream() : loans.stream();
+        Buckets totals = stream.collect(Collector.of(
+                () -> new Buckets(startDays),
+                (buckets, loan) -> buckets.add(loan, from, to),
+                Buckets::merge));
+
+        long totalInterest = 0;
+        long totalPrincipal = 0;
+        List<CashFlowForecast.Bucket> buckets = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            LocalDate end = i + 1 < starts.size() ? starts.get(i + 1) : to;
+            totalInterest += totals.interest[i];
+            totalPrincipal += totals.principal[i];
+            buckets.add(new CashFlowForecast.Bucket(starts.get(i), end,
+                    money(totals.interest[i]), money(totals.principal[i]),
+                    money(totals.interest[i] + totals.principal[i])));
+        }
+
+        return CashFlowForecast.builder()
+                .granularity(granularity.name())
+                .from(from)
+                .to(to)
+                .loanCount(loans.size())
+                .totalInterest(money(totalInterest))
+                .totalPrincipal(money(totalPrincipal))
+                .overduePrincipal(money(totals.overduePrincipal))
+                .buckets(List.copyOf(buckets))
+                .build();
+    }
+
+    static Granularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return Granularity.MONTH;
+        }
+        try {
+            return Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidForecastException("Unknown granularity: " + granularity + " (expected week or month)");
+        }
+    }
+
+    private long generation(Long userId) {
+        AtomicLong generation = generations.get(userId);
+        return generation != null ? generation.get() : 0L;
+    }
+
+    // Offsets from the first day avoid month-end drift (Jan 31 -> Feb 29 -> Mar 31)
+    private static LocalDate next(LocalDate from, Granularity granularity, int index) {
+        return granularity == Granularity.WEEK ? from.plusWeeks(index) : from.plusMonths(index);
+    }
+
+    private static BigDecimal money(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    private static long paise(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** Per-bucket accumulators in paise for one slice of the loans. */
+    private static final class Buckets {
+        private final long[] startDays;
+        private final long[] interest;
+        private final long[] principal;
+        private long overduePrincipal;
+
+        Buckets(long[] startDays) {
+            this.startDays = startDays;
+            this.interest = new long[startDays.length];
+            this.principal = new long[startDays.length];
+        }
+
+        void add(LoanForecastFields loan, LocalDate from, LocalDate to) {
+            long outstanding = paise(loan.getPrincipalAmount()) - paise(loan.getTotalPrincipalReceived());
+            if (outstanding <= 0) {
+                return;
+            }
+            Loan.InterestFrequency frequency = loan.getInterestFrequency() != null
+                    ? loan.getInterestFrequency() : Loan.InterestFrequency.MONTHLY;
+            LocalDate due = loan.getDueDate();
+            boolean overdue = due != null && due.isBefore(from);
+
+            // Interest dates in [from, stop): up to and including the due date unless already overdue
+            LocalDate stop = due != null && !overdue && due.isBefore(to) ? due.plusDays(1) : to;
+            long perPeriod = AmortizationCalculator.applyRate(outstanding,
+                    AmortizationCalculator.periodicRate(loan.getInterestRate(), frequency));
+            if (perPeriod > 0) {
+                LocalDate lend = loan.getLendDate();
+                for (long k = AmortizationCalculator.firstPeriodOnOrAfter(lend, from, frequency); ; k++) {
+                    LocalDate date = AmortizationCalculator.dueDate(lend, frequency, k);
+                    if (!date.isBefore(stop)) {
+                        break;
+                    }
+                    interest[bucket(date)] += perPeriod;
+                }
+            }
+
+            if (overdue) {
+                overduePrincipal += outstanding;
+            } else if (due != null && due.isBefore(to)) {
+                principal[bucket(due)] += outstanding;
+            }
+        }
+
+        Buckets merge(Buckets other) {
+            for (int i = 0; i < interest.length; i++) {
+                interest[i] += other.interest[i];
+                principal[i] += other.principal[i];
+            }
+            overduePrincipal += other.overduePrincipal;
+            return this;
+        }
+
+        private int bucket(LocalDate date) {
+            int index = Arrays.binarySearch(startDays, date.toEpochDay());
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+
+    private record ForecastKey(Long userId, long generation, LocalDate from, Granularity granularity, int months) {
+    }
+}
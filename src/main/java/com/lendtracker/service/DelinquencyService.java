@@ -0,0 +1,207 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Flags active loans whose next expected payment is late.
+ *
+ * LoanService keeps next_due_date current on every create, update and
+ * payment, so the scheduled scan only reads loans past that date through the
+ * (status, next_due_date, id) index. It walks them in keyset order, one
+ * chunk per short transaction, and only touches loans whose delinquency
+ * state actually changes. That keeps each run bounded on large tables. A
+ * reminder is queued for the lender on every transition.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DelinquencyService {
+
+    // Interest received covers at most this many periods; keeps date arithmetic in range
+    private static final long MAX_PAID_PERIODS = 100_000;
+    // A chunk that loses a loan's optimistic lock to a concurrent payment is re-read and retried
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final LoanRepository loanRepository;
+    private final EmailService emailService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.delinquency.chunk-size:500}")
+    private int chunkSize;
+
+    // Days past the next due date after which an overdue loan becomes delinquent
+    @Value("${app.delinquency.delinquent-after-days:30}")
+    private int delinquentAfterDays;
+
+    /**
+     * Recompute the loan's next due date after a change to its terms or
+     * payments, and clear its delinquency if it is no longer behind.
+     */
+    public static void refreshNextDueDate(Loan loan, LocalDate today) {
+        loan.setNextDueDate(loan.getStatus() == Loan.LoanStatus.ACTIVE ? nextDueDate(loan) : null);
+        if (loan.getDelinquency() == null
+                || loan.getNextDueDate() == null
+                || !loan.getNextDueDate().isBefore(today)) {
+            loan.setDelinquency(Loan.DelinquencyStatus.CURRENT);
+        }
+    }
+
+    /**
+     * First interest period not covered by the interest received so far, each
+     * period's interest being charged on the principal. Capped at the loan's
+     * due date, when the principal itself is expected back.
+     */
+    static LocalDate nextDueDate(Loan loan) {
+        LocalDate due = loan.getDueDate();
+        if (loan.getLendDate() == null || loan.getPrincipalAmount() == null || loan.getInterestRate() == null) {
+            return due;
+        }
+        Loan.InterestFrequency frequency = loan.getInterestFrequency() != null
+                ? loan.getInterestFrequency() : Loan.InterestFrequency.MONTHLY;
+        long perPeriod = AmortizationCalculator.applyRate(paise(loan.getPrincipalAmount()),
+                AmortizationCalculator.periodicRate(loan.getInterestRate(), frequency));
+        if (perPeriod <= 0) {
+            return due;
+        }
+        long paidPeriods = Math.min(paise(loan.getTotalInterestReceived()) / perPeriod, MAX_PAID_PERIODS);
+        LocalDate next = AmortizationCalculator.dueDate(loan.getLendDate(), frequency, paidPeriods + 1);
+        return due != null && due.isBefore(next) ? due : next;
+    }
+
+    @Scheduled(cron = "${app.delinquency.cron:0 0 6 * * *}")
+    public void scan() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        int backfilled = backfill(today);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDate delinquentBefore = today.minusDays(delinquentAfterDays);
+        LocalDate afterDate = null;
+        long afterId = 0L;
+        int scanned = 0;
+        int flagged = 0;
+
+        while (true) {
+            LocalDate cursorDate = afterDate;
+            long cursorId = afterId;
+            Chunk chunk = executeChunk(tx, status -> {
+                List<Loan> loans = loanRepository.findOverdueCandidates(Loan.LoanStatus.ACTIVE, today,
+                        delinquentBefore, Loan.DelinquencyStatus.CURRENT, Loan.DelinquencyStatus.OVERDUE,
+                        cursorDate, cursorId, PageRequest.of(0, chunkSize));
+                if (loans.isEmpty()) {
+                    return null;
+                }
+                Loan last = loans.get(loans.size() - 1);
+                return new Chunk(loans.size(), flag(loans, today, delinquentBefore), last.getNextDueDate(), last.getId());
+            });
+            if (chunk == null) {
+                break;
+            }
+            scanned += chunk.size();
+            flagged += chunk.flagged();
+            afterDate = chunk.lastDueDate();
+            afterId = chunk.lastId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        log.info("Delinquency scan finished in {} ms: {} scanned, {} flagged, {} backfilled",
+                (System.nanoTime() - start) / 1_000_000, scanned, flagged, backfilled);
+    }
+
+    private int flag(List<Loan> loans, LocalDate today, LocalDate delinquentBefore) {
+        int changed = 0;
+        for (Loan loan : loans) {
+            Loan.DelinquencyStatus target = loan.getNextDueDate().isBefore(delinquentBefore)
+                    ? Loan.DelinquencyStatus.DELINQUENT : Loan.DelinquencyStatus.OVERDUE;
+            if (target == loan.getDelinquency()) {
+                continue;
+            }
+            loan.setDelinquency(target);
+            emailService.sendLoanOverdueEmail(
+                    loan.getUser().getEmail(),
+                    loan.getUser().getName(),
+                    loan.getBorrowerName(),
+                    loan.getNextDueDate(),
+                    ChronoUnit.DAYS.between(loan.getNextDueDate(), today),
+                    outstanding(loan),
+                    target == Loan.DelinquencyStatus.DELINQUENT);
+            changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * Fill next_due_date for active loans written before the column existed.
+     * Loans that legitimately have none (no due date and no interest) are
+     * revisited each run, which is cheap as there are few of them.
+     */
+    private int backfill(LocalDate today) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int filled = 0;
+        while (true) {
+            long cursorId = afterId;
+            List<Loan> chunk = executeChunk(tx, status -> {
+                List<Loan> loans = loanRepository.findWithoutNextDueDate(Loan.LoanStatus.ACTIVE, cursorId,
+                        PageRequest.of(0, chunkSize));
+                for (Loan loan : loans) {
+                    refreshNextDueDate(loan, today);
+                }
+                return loans;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            filled += (int) chunk.stream().filter(loan -> loan.getNextDueDate() != null).count();
+            afterId = chunk.get(chunk.size() - 1).getId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        return filled;
+    }
+
+    private static <T> T executeChunk(TransactionTemplate tx, TransactionCallback<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(work);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Delinquency chunk raced a loan update, retrying (attempt {})", attempt);
+            }
+        }
+    }
+
+    private record Chunk(int size, int flagged, LocalDate lastDueDate, Long lastId) {
+    }
+
+    private static BigDecimal outstanding(Loan loan) {
+        BigDecimal repaid = loan.getTotalPrincipalReceived() != null ? loan.getTotalPrincipalReceived() : BigDecimal.ZERO;
+        return loan.getPrincipalAmount().subtract(repaid).max(BigDecimal.ZERO);
+    }
+
+    private static long paise(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
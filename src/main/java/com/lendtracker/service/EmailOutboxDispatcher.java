@@ -0,0 +1,256 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.EmailOutbox;
+import com.lendtracker.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email_outbox table.
+ *
+ * Each poll claims due rows in batches (skipping rows locked by other
+ * instances) and hands every batch to a small bounded worker pool. A worker
+ * sends its batch with a single JavaMailSender.send(MimeMessage...) call, so
+ * the whole batch goes over one SMTP connection. Failed emails are retried with
+ * exponential backoff until max-attempts, then marked FAILED.
+ *
+ * Claiming sets nextAttemptAt to now + lease, so a batch lost to a crash is
+ * picked up again once the lease expires.
+ *
+ * Metrics: email.outbox.depth (pending rows), email.send.latency (per batch),
+ * email.sent and email.failed{outcome=retry|dead}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username:}")
+    private String fromEmail;
+
+    @Value("${app.email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.workers:2}")
+    private int workers;
+
+    @Value("${app.email.outbox.queue-capacity:4}")
+    private int queueCapacity;
+
+    @Value("${app.email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${app.email.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolTaskExecutor workerPool;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private Timer sendLatency;
+    private Counter sent;
+    private Counter retried;
+    private Counter dead;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        workerPool = new ThreadPoolTaskExecutor();
+        workerPool.setCorePoolSize(workers);
+        workerPool.setMaxPoolSize(workers);
+        workerPool.setQueueCapacity(queueCapacity);
+        workerPool.setThreadNamePrefix("email-outbox-");
+        workerPool.setWaitForTasksToCompleteOnShutdown(true);
+        workerPool.setAwaitTerminationSeconds(30);
+        workerPool.initialize();
+
+        meterRegistry.gauge("email.outbox.depth", queueDepth);
+        sendLatency = Timer.builder("email.send.latency").register(meterRegistry);
+        sent = Counter.builder("email.sent").register(meterRegistry);
+        retried = Counter.builder("email.failed").tag("outcome", "retry").register(meterRegistry);
+        dead = Counter.builder("email.failed").tag("outcome", "dead").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workerPool.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        // Only claim what the pool can take; anything left waits for the next poll
+        while (workerPool.getThreadPoolExecutor().getQueue().remainingCapacity() > 0) {
+            List<EmailOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            try {
+                workerPool.execute(() -> deliver(batch));
+            } catch (TaskRejectedException e) {
+                // The claimed rows become due again when their lease expires
+                break;
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        queueDepth.set(emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = emailOutboxRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+        for (EmailOutbox email : batch) {
+            email.setStatus(EmailOutbox.Status.SENDING);
+            email.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        }
+        return batch;
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        try {
+            Map<Long, Exception> failures = sendLatency.record(() -> sendBatch(batch));
+            transactionTemplate.executeWithoutResult(status -> recordOutcome(batch, failures));
+        } catch (RuntimeException e) {
+            // Leave the rows claimed; they are retried after the lease expires
+            log.error("Email outbox batch of {} failed: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the batch over one SMTP connection. Returns the failure for each
+     * email id that was not delivered.
+     */
+    Map<Long, Exception> sendBatch(List<EmailOutbox> batch) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Long> idsByMessage = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                idsByMessage.put(toMimeMessage(email), email.getId());
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        if (idsByMessage.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            mailSender.send(idsByMessage.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                idsByMessage.values().forEach(id -> failures.put(id, e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(idsByMessage.get(message), cause));
+            }
+        } catch (MailException e) {
+            // Authentication or connection failure: nothing in the batch went out
+            idsByMessage.values().forEach(id -> failures.put(id, e));
+        }
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getToAddress());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlBody(), true);
+        return message;
+    }
+
+    void recordOutcome(List<EmailOutbox> batch, Map<Long, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = batch.stream().map(EmailOutbox::getId).collect(Collectors.toList());
+        List<EmailOutbox> rows = new ArrayList<>(emailOutboxRepository.findAllById(ids));
+
+        for (EmailOutbox email : rows) {
+            Exception failure = failures.get(email.getId());
+            if (failure == null) {
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent.increment();
+                continue;
+            }
+
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(truncate(failure.getMessage()));
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.FAILED);
+                dead.increment();
+                log.error("Giving up on email {} to {} after {} attempts: {}",
+                        email.getId(), email.getToAddress(), email.getAttempts(), failure.getMessage());
+            } else {
+                email.setStatus(EmailOutbox.Status.PENDING);
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                retried.increment();
+                log.warn("Email {} to {} failed (attempt {}), retrying: {}",
+                        email.getId(), email.getToAddress(), email.getAttempts(), failure.getMessage());
+            }
+        }
+        emailOutboxRepository.saveAll(rows);
+    }
+
+    // backoff-seconds, doubled per attempt, capped at max-backoff-seconds
+    Duration backoff(int attempts) {
+        long seconds = backoffSeconds << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffSeconds));
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,135 @@
+package com.lendtracker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An email template compiled into alternating literal text and variable slots.
+ *
+ * Syntax: {{name}} is a variable, {{> name}} includes a partial. Partials and
+ * constants (app name, base URL) are resolved at compile time and merged into
+ * the surrounding literals, so rendering only appends strings to one presized
+ * StringBuilder. Variable values are HTML-escaped.
+ */
+public final class EmailTemplate {
+
+    private static final Pattern TAG = Pattern.compile("\\{\\{\\s*(>)?\\s*([\\w.-]+)\\s*}}");
+    private static final int ESTIMATED_VALUE_LENGTH = 24;
+
+    private final String name;
+    // literals.length == variables.length + 1
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private EmailTemplate(String name, List<String> literals, List<String> variables) {
+        this.name = name;
+        this.literals = literals.toArray(new String[0]);
+        this.variables = variables.toArray(new String[0]);
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles source text. Partials are looked up through the given function
+     * (and may include further partials); names in constants are substituted
+     * verbatim instead of becoming variables.
+     */
+    public static EmailTemplate compile(String name, String source,
+                                        Function<String, String> partials,
+                                        Map<String, String> constants) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        expand(name, source, partials, constants, literal, literals, variables, 0);
+        literals.add(literal.toString());
+        return new EmailTemplate(name, literals, variables);
+    }
+
+    private static void expand(String name, String source, Function<String, String> partials,
+                               Map<String, String> constants, StringBuilder literal,
+                               List<String> literals, List<String> variables, int depth) {
+        if (depth > 8) {
+            throw new IllegalStateException("Email template partials nested too deeply in " + name);
+        }
+        Matcher matcher = TAG.matcher(source);
+        int position = 0;
+        while (matcher.find()) {
+            literal.append(source, position, matcher.start());
+            String key = matcher.group(2);
+            if (matcher.group(1) != null) {
+                String partial = partials.apply(key);
+                if (partial == null) {
+                    throw new IllegalStateException("Unknown email partial '" + key + "' in " + name);
+                }
+                expand(name, partial, partials, constants, literal, literals, variables, depth + 1);
+            } else if (constants.containsKey(key)) {
+                literal.append(escape(constants.get(key)));
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                variables.add(key);
+            }
+            position = matcher.end();
+        }
+        literal.append(source, position, source.length());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    /**
+     * Renders the template. Every variable must have a value.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder out = new StringBuilder(literalLength + variables.length * ESTIMATED_VALUE_LENGTH);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException(
+                        "Missing value for '" + variables[i] + "' in email template " + name);
+            }
+            appendEscaped(out, value);
+        }
+        out.append(literals[variables.length]);
+        return out.toString();
+    }
+
+    static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        appendEscaped(out, value);
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+}
@@ -0,0 +1,73 @@
+package com.lendtracker.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled email templates, loaded once at startup from classpath:templates/email.
+ *
+ * Files starting with "_" are partials (e.g. _header.html, included as
+ * {{> header}}). appName and baseUrl are constants baked into the compiled
+ * templates, so the shared header and footer render to fixed text.
+ */
+@Component
+@Slf4j
+public class EmailTemplates {
+
+    private static final String LOCATION = "classpath:templates/email/*.html";
+
+    private final Map<String, EmailTemplate> templates = new HashMap<>();
+
+    @Value("${app.name:LendTracker}")
+    private String appName;
+
+    @Value("${app.base-url:http://localhost:5173}")
+    private String baseUrl;
+
+    @PostConstruct
+    void load() {
+        Map<String, String> partials = new HashMap<>();
+        Map<String, String> sources = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                String fileName = resource.getFilename();
+                String name = fileName.substring(0, fileName.length() - ".html".length());
+                String source = resource.getContentAsString(StandardCharsets.UTF_8);
+                if (name.startsWith("_")) {
+                    partials.put(name.substring(1), source);
+                } else {
+                    sources.put(name, source);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email templates", e);
+        }
+
+        Map<String, String> constants = Map.of("appName", appName, "baseUrl", baseUrl);
+        sources.forEach((name, source) ->
+                templates.put(name, EmailTemplate.compile(name, source, partials::get, constants)));
+        log.info("Compiled {} email templates", templates.size());
+    }
+
+    public EmailTemplate get(String name) {
+        EmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        return template;
+    }
+
+    public String render(String name, Map<String, String> values) {
+        return get(name).render(values);
+    }
+}
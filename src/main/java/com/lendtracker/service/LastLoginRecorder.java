@@ -0,0 +1,135 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.User;
+import com.lendtracker.security.UserPrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for users' last login time.
+ *
+ * Logins only record the time in memory, so the login path does not write
+ * or lock the users row. Repeated logins by the same user collapse into one
+ * entry, and every few seconds (and on shutdown) the pending times are
+ * written with one batched UPDATE. The UPDATE never moves a time backwards,
+ * so instances flushing in any order keep the latest login.
+ *
+ * User.lastLoginAt is not updatable through JPA, so saving a User loaded
+ * before a flush cannot overwrite the flushed value. A flush that fails
+ * keeps its entries for the next run.
+ *
+ * Metrics: auth.last-login.pending (buffered users), auth.last-login.flush
+ * (per flush) and auth.last-login.written (rows updated).
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserPrincipalCache userPrincipalCache;
+    private final int batchSize;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final Timer flushLatency;
+    private final Counter written;
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory,
+                             UserPrincipalCache userPrincipalCache,
+                             @Value("${app.auth.last-login.batch-size:500}") int batchSize,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.userPrincipalCache = userPrincipalCache;
+        this.batchSize = batchSize;
+        this.flushLatency = Timer.builder("auth.last-login.flush").register(meterRegistry);
+        this.written = Counter.builder("auth.last-login.written").register(meterRegistry);
+        meterRegistry.gauge("auth.last-login.pending", pending, Map::size);
+    }
+
+    /** Remember the login; only the latest time per user is kept. */
+    public void record(Long userId, LocalDateTime at) {
+        pending.merge(userId, at, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLatency.record(this::writePending);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private synchronized void writePending() {
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        pending.forEach((userId, at) -> batch.add(Map.entry(userId, at)));
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int[][] counts = new TransactionTemplate(transactionManager).execute(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batchSize, (ps, entry) -> {
+                        Timestamp at = Timestamp.valueOf(entry.getValue());
+                        ps.setTimestamp(1, at);
+                        ps.setLong(2, entry.getKey());
+                        ps.setTimestamp(3, at);
+                    }));
+            written.increment(updatedRows(counts));
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} last login times, will retry: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        // Keep entries that a newer login replaced while the batch was written
+        Cache cache = entityManagerFactory.getCache();
+        for (Map.Entry<Long, LocalDateTime> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+            // The JDBC update bypasses Hibernate, so drop the cached row and principal
+            cache.evict(User.class, entry.getKey());
+            userPrincipalCache.invalidate(entry.getKey());
+        }
+        log.debug("Wrote last login times for {} users", batch.size());
+    }
+
+    private static int updatedRows(int[][] counts) {
+        int rows = 0;
+        if (counts != null) {
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                    rows += Math.max(count, 0);
+                }
+            }
+        }
+        return rows;
+    }
+}
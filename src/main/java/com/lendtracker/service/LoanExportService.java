@@ -0,0 +1,219 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * CSV export of a user's loans and payments.
+ *
+ * Rows are read with plain JDBC from a forward-only cursor with a fixed fetch
+ * size and written straight to the response, so memory use does not grow with
+ * the number of rows and the first bytes go out immediately. MySQL needs
+ * useCursorFetch=true for a server-side cursor, and PostgreSQL needs the
+ * read-only transaction (autocommit off); both are set up.
+ */
+@Service
+public class LoanExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final String LOANS_SQL =
+            "SELECT id, borrower_name, borrower_phone, borrower_email, principal_amount, interest_rate, " +
+            "lend_date, due_date, interest_frequency, total_interest_received, total_principal_received, " +
+            "status, notes, created_at " +
+            "FROM loans WHERE user_id = ? ORDER BY id";
+
+    private static final String PAYMENTS_SQL =
+            "SELECT p.id, p.loan_id, l.borrower_name, p.payment_type, p.amount, p.payment_date, p.notes " +
+            "FROM payment_history p JOIN loans l ON l.id = p.loan_id " +
+            "WHERE l.user_id = ? ORDER BY p.payment_date, p.id";
+
+    private static final String[] LOAN_HEADER = {
+            "id", "borrower_name", "borrower_phone", "borrower_email", "principal_amount", "interest_rate",
+            "lend_date", "due_date", "interest_frequency", "total_interest_received", "total_principal_received",
+            "status", "notes", "created_at"
+    };
+
+    private static final String[] PAYMENT_HEADER = {
+            "id", "loan_id", "borrower_name", "payment_type", "amount", "payment_date", "notes"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoanExportService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportLoansCsv(User user, OutputStream out) throws IOException {
+        export(out, LOAN_HEADER, LOANS_SQL, user.getId(), (csv, rs) -> {
+            csv.number(rs.getLong("id"));
+            csv.text(rs.getString("borrower_name"));
+            csv.text(rs.getString("borrower_phone"));
+            csv.text(rs.getString("borrower_email"));
+            csv.decimal(rs.getBigDecimal("principal_amount"));
+            csv.number(rs.getDouble("interest_rate"));
+            csv.date(rs.getDate("lend_date"));
+            csv.date(rs.getDate("due_date"));
+            csv.text(rs.getString("interest_frequency"));
+            csv.decimal(rs.getBigDecimal("total_interest_received"));
+            csv.decimal(rs.getBigDecimal("total_principal_received"));
+            csv.text(rs.getString("status"));
+            csv.text(rs.getString("notes"));
+            csv.date(rs.getDate("created_at"));
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPaymentsCsv(User user, OutputStream out) throws IOException {
+        export(out, PAYMENT_HEADER, PAYMENTS_SQL, user.getId(), (csv, rs) -> {
+            csv.number(rs.getLong("id"));
+            csv.number(rs.getLong("loan_id"));
+            csv.text(rs.getString("borrower_name"));
+            csv.text(rs.getString("payment_type"));
+            csv.decimal(rs.getBigDecimal("amount"));
+            csv.date(rs.getDate("payment_date"));
+            csv.text(rs.getString("notes"));
+        });
+    }
+
+    private interface RowWriter {
+        void write(CsvRow csv, ResultSet rs) throws SQLException, IOException;
+    }
+
+    private void export(OutputStream out, String[] header, String sql, Long userId, RowWriter rowWriter)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        CsvRow csv = new CsvRow(writer);
+        for (String column : header) {
+            csv.text(column);
+        }
+        csv.end();
+        writer.flush();
+
+        int[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            try {
+                rowWriter.write(csv, rs);
+                csv.end();
+                if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        jdbcTemplate.query(sql, handler, userId);
+        writer.flush();
+    }
+
+    /**
+     * Writes one CSV record at a time (RFC 4180 quoting). Text cells that
+     * would be read as a spreadsheet formula get a leading quote so they
+     * open as text.
+     */
+    static final class CsvRow {
+        private final Writer writer;
+        private boolean first = true;
+
+        CsvRow(Writer writer) {
+            this.writer = writer;
+        }
+
+        void text(String value) throws IOException {
+            separator();
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            if (looksLikeFormula(value)) {
+                value = "'" + value;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        void number(long value) throws IOException {
+            separator();
+            writer.write(Long.toString(value));
+        }
+
+        void number(double value) throws IOException {
+            separator();
+            writer.write(Double.toString(value));
+        }
+
+        void decimal(BigDecimal value) throws IOException {
+            separator();
+            if (value != null) {
+                writer.write(value.toPlainString());
+            }
+        }
+
+        void date(Date value) throws IOException {
+            separator();
+            if (value != null) {
+                writer.write(value.toLocalDate().toString());
+            }
+        }
+
+        void end() throws IOException {
+            writer.write("\r\n");
+            first = true;
+        }
+
+        // '=' and '@' always start a formula; '+' and '-' only matter when the
+        // value is not just a phone number or signed number ("+91 98765 43210")
+        static boolean looksLikeFormula(String value) {
+            char lead = value.charAt(0);
+            if (lead == '=' || lead == '@') {
+                return true;
+            }
+            if (lead != '+' && lead != '-') {
+                return false;
+            }
+            for (int i = 1; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (!Character.isDigit(c) && c != ' ' && c != '-' && c != '(' && c != ')' && c != '.') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void separator() throws IOException {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+        }
+    }
+}
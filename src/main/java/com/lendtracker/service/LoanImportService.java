@@ -0,0 +1,424 @@
+package com.lendtracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lendtracker.dto.BulkImportResult;
+import com.lendtracker.dto.BulkImportResult.RowError;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidImportException;
+import com.lendtracker.service.PortfolioSummaryService.LoanSnapshot;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loan import (POST /api/loans/bulk).
+ *
+ * The request body is read line by line as CSV (with a header row) or JSON
+ * lines. Each row is validated against the Loan constraints, and valid rows
+ * are inserted with JDBC batch statements, because the IDENTITY ids on Loan
+ * stop Hibernate from batching inserts. Each batch commits in its own
+ * transaction together with its portfolio summary update, so the user's
+ * summary row lock is held for one batch rather than the whole import. If a
+ * batch cannot be saved the import stops there: earlier batches stay
+ * committed and the result reports how far it got (completed = false).
+ * One summary email and one activity event are written at the end instead
+ * of one per loan.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanImportService {
+
+    public enum Format { CSV, JSON_LINES }
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO loans (user_id, borrower_name, borrower_phone, borrower_email, principal_amount, " +
+            "interest_rate, lend_date, due_date, interest_frequency, total_interest_received, " +
+            "total_principal_received, notes, status, created_at, updated_at, next_due_date, delinquency, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final PortfolioSummaryService portfolioSummaryService;
+    private final BorrowerSearchIndex borrowerSearchIndex;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final ActivityService activityService;
+    private final EmailService emailService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.loans.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.loans.bulk.max-rows:100000}")
+    private int maxRows;
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkImportResult importLoans(User user, InputStream body, Format format) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowParser parser = format == Format.CSV ? new CsvRowParser(reader.readLine()) : new JsonRowParser();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<Loan> batch = new ArrayList<>(batchSize);
+        List<RowError> errors = new ArrayList<>();
+        int rowNumber = 0;
+        int batchFirstRow = 0;
+        int imported = 0;
+        int failed = 0;
+        boolean completed = true;
+        BigDecimal totalPrincipal = BigDecimal.ZERO;
+        LocalDate today = LocalDate.now();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            if (rowNumber > maxRows) {
+                failed++;
+                addError(errors, rowNumber, "Row limit of " + maxRows + " exceeded; remaining rows were not read");
+                break;
+            }
+
+            String error;
+            Loan loan = null;
+            try {
+                loan = parser.parse(line);
+                error = validate(loan);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                failed++;
+                addError(errors, rowNumber, error);
+                continue;
+            }
+
+            loan.setCreatedAt(today);
+            loan.setUpdatedAt(today);
+            loan.setDelinquency(Loan.DelinquencyStatus.CURRENT);
+            DelinquencyService.refreshNextDueDate(loan, today);
+            if (batch.isEmpty()) {
+                batchFirstRow = rowNumber;
+            }
+            batch.add(loan);
+            if (batch.size() >= batchSize) {
+                String batchError = commitBatch(tx, user, batch);
+                if (batchError != null) {
+                    failed += batch.size();
+                    addError(errors, batchFirstRow, batchError);
+                    completed = false;
+                    break;
+                }
+                imported += batch.size();
+                totalPrincipal = totalPrincipal.add(principal(batch));
+                batch.clear();
+            }
+        }
+        if (completed && !batch.isEmpty()) {
+            String batchError = commitBatch(tx, user, batch);
+            if (batchError != null) {
+                failed += batch.size();
+                addError(errors, batchFirstRow, batchError);
+                completed = false;
+            } else {
+                imported += batch.size();
+                totalPrincipal = totalPrincipal.add(principal(batch));
+            }
+        }
+
+        if (imported > 0) {
+            int importedCount = imported;
+            int failedCount = failed;
+            BigDecimal importedPrincipal = totalPrincipal;
+            tx.executeWithoutResult(status -> {
+                borrowerSearchIndex.invalidate(user);
+                cashFlowForecastService.invalidate(user);
+                activityService.loansImported(user, importedCount, importedPrincipal);
+                emailService.sendLoansImportedEmail(user.getEmail(), user.getName(),
+                        importedCount, failedCount, importedPrincipal);
+            });
+        }
+        log.info("Imported {} loans ({} rejected{}) for user {} in {} ms", imported, failed,
+                completed ? "" : ", stopped at a failed batch", user.getId(), (System.nanoTime() - start) / 1_000_000);
+
+        return BulkImportResult.builder()
+                .totalRows(Math.min(rowNumber, maxRows))
+                .importedCount(imported)
+                .failedCount(failed)
+                .totalPrincipal(totalPrincipal)
+                .errors(errors)
+                .errorsTruncated(failed > errors.size())
+                .completed(completed)
+                .build();
+    }
+
+    // Insert and commit one batch; returns why it failed, or null once it is committed
+    private String commitBatch(TransactionTemplate tx, User user, List<Loan> loans) {
+        try {
+            tx.executeWithoutResult(status -> insertBatch(user, loans));
+            log.debug("Committed {} imported loans for user {}", loans.size(), user.getId());
+            return null;
+        } catch (DataAccessException e) {
+            log.warn("Import batch of {} loans for user {} failed: {}", loans.size(), user.getId(), e.getMessage());
+            return "Batch of " + loans.size() + " rows starting here could not be saved; "
+                    + "this and later rows were not imported";
+        }
+    }
+
+    private static BigDecimal principal(List<Loan> loans) {
+        return loans.stream().map(Loan::getPrincipalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static void addError(List<RowError> errors, int row, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    private String validate(Loan loan) {
+        Set<ConstraintViolation<Loan>> violations = validator.validate(loan);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void insertBatch(User user, List<Loan> loans) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, loans, loans.size(), (ps, loan) -> {
+            ps.setLong(1, user.getId());
+            ps.setString(2, loan.getBorrowerName());
+            ps.setString(3, loan.getBorrowerPhone());
+            ps.setString(4, loan.getBorrowerEmail());
+            ps.setBigDecimal(5, loan.getPrincipalAmount());
+            ps.setDouble(6, loan.getInterestRate());
+            ps.setDate(7, Date.valueOf(loan.getLendDate()));
+            if (loan.getDueDate() != null) {
+                ps.setDate(8, Date.valueOf(loan.getDueDate()));
+            } else {
+                ps.setNull(8, Types.DATE);
+            }
+            ps.setString(9, loan.getInterestFrequency().name());
+            ps.setBigDecimal(10, loan.getTotalInterestReceived());
+            ps.setBigDecimal(11, loan.getTotalPrincipalReceived());
+            ps.setString(12, loan.getNotes());
+            ps.setString(13, loan.getStatus().name());
+            ps.setDate(14, Date.valueOf(loan.getCreatedAt()));
+            ps.setDate(15, Date.valueOf(loan.getUpdatedAt()));
+            if (loan.getNextDueDate() != null) {
+                ps.setDate(16, Date.valueOf(loan.getNextDueDate()));
+            } else {
+                ps.setNull(16, Types.DATE);
+            }
+            ps.setString(17, loan.getDelinquency().name());
+        });
+        portfolioSummaryService.onLoansCreated(user,
+                loans.stream().map(LoanSnapshot::of).collect(Collectors.toList()));
+    }
+
+    // ==================== ROW PARSING ====================
+
+    interface RowParser {
+        /** Parses one line into an unsaved Loan; throws IllegalArgumentException for malformed values. */
+        Loan parse(String line);
+    }
+
+    private class JsonRowParser implements RowParser {
+        @Override
+        public Loan parse(String line) {
+            try {
+                Loan loan = objectMapper.readValue(line, Loan.class);
+                applyDefaults(loan);
+                return loan;
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * CSV with a header row naming the columns, in any order. Column names
+     * match Loan's fields, case-insensitively and ignoring underscores
+     * (borrowerName, borrower_name). Fields may be double-quoted; quoted
+     * fields cannot span lines.
+     */
+    static class CsvRowParser implements RowParser {
+        private static final Set<String> REQUIRED = Set.of("borrowername", "principalamount", "interestrate", "lenddate");
+
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        CsvRowParser(String header) {
+            if (header == null) {
+                throw new InvalidImportException("CSV import needs a header row");
+            }
+            // Excel writes a UTF-8 byte order mark before the first column name
+            List<String> names = splitCsvLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(normalize(names.get(i)), i);
+            }
+            for (String required : REQUIRED) {
+                if (!columns.containsKey(required)) {
+                    throw new InvalidImportException("CSV header is missing required column: " + required);
+                }
+            }
+        }
+
+        @Override
+        public Loan parse(String line) {
+            List<String> fields = splitCsvLine(line);
+            Loan loan = Loan.builder()
+                    .borrowerName(text(fields, "borrowername"))
+                    .borrowerPhone(text(fields, "borrowerphone"))
+                    .borrowerEmail(text(fields, "borroweremail"))
+                    .principalAmount(decimal(fields, "principalamount"))
+                    .interestRate(rate(fields))
+                    .lendDate(date(fields, "lenddate"))
+                    .dueDate(date(fields, "duedate"))
+                    .totalInterestReceived(decimal(fields, "totalinterestreceived"))
+                    .totalPrincipalReceived(decimal(fields, "totalprincipalreceived"))
+                    .notes(text(fields, "notes"))
+                    .build();
+            String frequency = text(fields, "interestfrequency");
+            if (frequency != null) {
+                loan.setInterestFrequency(enumValue(Loan.InterestFrequency.class, "interestFrequency", frequency));
+            }
+            String status = text(fields, "status");
+            if (status != null) {
+                loan.setStatus(enumValue(Loan.LoanStatus.class, "status", status));
+            }
+            applyDefaults(loan);
+            return loan;
+        }
+
+        private String text(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private BigDecimal decimal(List<String> fields, String column) {
+            String value = text(fields, column);
+            try {
+                return value == null ? null : new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": '" + value + "'");
+            }
+        }
+
+        private Double rate(List<String> fields) {
+            String value = text(fields, "interestrate");
+            try {
+                return value == null ? null : Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid interestRate: '" + value + "'");
+            }
+        }
+
+        private LocalDate date(List<String> fields, String column) {
+            String value = text(fields, column);
+            try {
+                return value == null ? null : LocalDate.parse(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid " + column + " (expected yyyy-MM-dd): '" + value + "'");
+            }
+        }
+
+        private static <E extends Enum<E>> E enumValue(Class<E> type, String column, String value) {
+            try {
+                return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": '" + value + "'");
+            }
+        }
+
+        private static String normalize(String column) {
+            return column.trim().replace("_", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Builder defaults do not apply to explicit nulls from CSV or JSON
+    private static void applyDefaults(Loan loan) {
+        if (loan.getInterestFrequency() == null) {
+            loan.setInterestFrequency(Loan.InterestFrequency.MONTHLY);
+        }
+        if (loan.getStatus() == null) {
+            loan.setStatus(Loan.LoanStatus.ACTIVE);
+        }
+        if (loan.getTotalInterestReceived() == null) {
+            loan.setTotalInterestReceived(BigDecimal.ZERO);
+        }
+        if (loan.getTotalPrincipalReceived() == null) {
+            loan.setTotalPrincipalReceived(BigDecimal.ZERO);
+        }
+        loan.setId(null);
+    }
+
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -1,61 +1,94 @@
 package com.lendtracker.service;
 
+import com.lendtracker.dto.CursorPage;
 import com.lendtracker.dto.InterestCalculation;
+import com.lendtracker.dto.KeysetCursor;
+import com.lendtracker.dto.LoanFilter;
+import com.lendtracker.dto.LoanResponse;
 import com.lendtracker.dto.PaymentHistoryResponse;
 import com.lendtracker.dto.PaymentRequest;
 import com.lendtracker.entity.Loan;
 import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.PortfolioSummary;
 import com.lendtracker.entity.User;
 import com.lendtracker.exception.LoanNotFoundException;
 import com.lendtracker.repository.LoanRepository;
 import com.lendtracker.repository.PaymentHistoryRepository;
+import com.lendtracker.repository.projection.LoanFilterCount;
+import com.lendtracker.service.PortfolioSummaryService.LoanSnapshot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class LoanService {
 
+    private static final int TOP_BORROWER_LIMIT = 5;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    // Above this many index hits an IN list stops paying off; fall back to LIKE
+    private static final int MAX_INDEXED_MATCHES = 1000;
+    // A payment that loses the optimistic lock on its loan is retried this many times in all
+    private static final int MAX_PAYMENT_ATTEMPTS = 5;
+    private static final long PAYMENT_RETRY_BACKOFF_MS = 10;
+
     private final LoanRepository loanRepository;
     private final PaymentHistoryRepository paymentHistoryRepository;
     private final EmailService emailService;
+    private final PortfolioSummaryService portfolioSummaryService;
+    private final BorrowerSearchIndex borrowerSearchIndex;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final ActivityService activityService;
+    private final PlatformTransactionManager transactionManager;
 
     public Loan createLoan(Loan loan, User user) {
         loan.setUser(user);
+        loan.setDelinquency(Loan.DelinquencyStatus.CURRENT);
+        DelinquencyService.refreshNextDueDate(loan, LocalDate.now());
         Loan savedLoan = loanRepository.save(loan);
-        
-        // Send email notification for new loan
-        try {
-            emailService.sendNewLoanEmail(
-                user.getEmail(),
-                user.getName(),
-                savedLoan.getBorrowerName(),
-                savedLoan.getPrincipalAmount(),
-                savedLoan.getInterestRate()
-            );
-        } catch (Exception e) {
-            // Log but don't fail the loan creation
-            // Email notification is not critical
-        }
+        portfolioSummaryService.onLoanChanged(user, null, LoanSnapshot.of(savedLoan));
+        cashFlowForecastService.invalidate(user);
+        borrowerSearchIndex.onLoanSaved(user, savedLoan);
+        activityService.loanCreated(user, savedLoan);
+        
+        // Queue email notification for new loan (sent from the outbox after commit)
+        emailService.sendNewLoanEmail(
+            user.getEmail(),
+            user.getName(),
+            savedLoan.getBorrowerName(),
+            savedLoan.getPrincipalAmount(),
+            savedLoan.getInterestRate()
+        );
         
         return savedLoan;
     }
 
     @Transactional(readOnly = true)
-    public List<Loan> getAllLoans(User user) {
-        return loanRepository.findByUserOrderByCreatedAtDesc(user);
+    public List<LoanResponse> getAllLoans(User user) {
+        return findLoans(user, LoanFilter.none(), null, Pageable.unpaged());
     }
 
     @Transactional(readOnly = true)
-    public List<Loan> searchAndFilterLoans(
+    public List<LoanResponse> searchAndFilterLoans(
             User user,
             String search,
             String status,
@@ -66,6 +99,21 @@ public class LoanService {
             Double maxRate,
             LocalDate fromDate,
             LocalDate toDate
+    ) {
+        LoanFilter filter = buildFilter(search, status, frequency, minAmount, maxAmount, minRate, maxRate, fromDate, toDate);
+        return findLoans(user, filter, null, Pageable.unpaged());
+    }
+
+    public LoanFilter buildFilter(
+            String search,
+            String status,
+            String frequency,
+            BigDecimal minAmount,
+            BigDecimal maxAmount,
+            Double minRate,
+            Double maxRate,
+            LocalDate fromDate,
+            LocalDate toDate
     ) {
         Loan.LoanStatus statusEnum = null;
         Loan.InterestFrequency frequencyEnum = null;
@@ -84,55 +132,150 @@ public class LoanService {
         
         String searchTerm = (search != null && !search.trim().isEmpty()) ? search.trim() : null;
         
+        return LoanFilter.builder()
+                .search(searchTerm)
+                .status(statusEnum)
+                .frequency(frequencyEnum)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .minRate(minRate)
+                .maxRate(maxRate)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .build();
+    }
+
+    // One keyset page of the user's loans, newest first (at most MAX_PAGE_SIZE rows)
+    @Transactional(readOnly = true)
+    public CursorPage<LoanResponse> searchLoans(User user, LoanFilter filter, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<LoanResponse> rows = findLoans(user, filter, KeysetCursor.parse(cursor), PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            LoanResponse last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPage<>(rows, nextCursor);
+    }
+
+    /**
+     * Hand every matching loan to the consumer as it is read from a forward-only
+     * cursor. Rows are projections, so nothing accumulates in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void streamLoans(User user, LoanFilter filter, Consumer<LoanResponse> consumer) {
+        SearchMatch match = resolveSearch(user, filter.getSearch());
+        if (match == null) {
+            return;
+        }
+        try (Stream<LoanResponse> loans = match.ids() != null
+                ? loanRepository.streamSearchAndFilterByIds(
+                        user, null, filter.getStatus(), filter.getFrequency(),
+                        filter.getMinAmount(), filter.getMaxAmount(), filter.getMinRate(), filter.getMaxRate(),
+                        filter.getFromDate(), filter.getToDate(), match.ids())
+                : loanRepository.streamSearchAndFilter(
+                        user, match.likeTerm(), filter.getStatus(), filter.getFrequency(),
+                        filter.getMinAmount(), filter.getMaxAmount(), filter.getMinRate(), filter.getMaxRate(),
+                        filter.getFromDate(), filter.getToDate())) {
+            loans.forEach(consumer);
+        }
+    }
+
+    private List<LoanResponse> findLoans(User user, LoanFilter filter, KeysetCursor cursor, Pageable pageable) {
+        SearchMatch match = resolveSearch(user, filter.getSearch());
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        LocalDate beforeDate = cursor != null ? cursor.date() : null;
+        Long beforeId = cursor != null ? cursor.id() : null;
+        if (match.ids() != null) {
+            return loanRepository.searchAndFilterByIds(
+                user, null, filter.getStatus(), filter.getFrequency(),
+                filter.getMinAmount(), filter.getMaxAmount(), filter.getMinRate(), filter.getMaxRate(),
+                filter.getFromDate(), filter.getToDate(), match.ids(),
+                beforeDate, beforeId, pageable);
+        }
         return loanRepository.searchAndFilter(
             user,
-            searchTerm,
-            statusEnum,
-            frequencyEnum,
-            minAmount,
-            maxAmount,
-            minRate,
-            maxRate,
-            fromDate,
-            toDate
+            match.likeTerm(),
+            filter.getStatus(),
+            filter.getFrequency(),
+            filter.getMinAmount(),
+            filter.getMaxAmount(),
+            filter.getMinRate(),
+            filter.getMaxRate(),
+            filter.getFromDate(),
+            filter.getToDate(),
+            beforeDate,
+            beforeId,
+            pageable
         );
     }
 
+    /**
+     * How a free-text term is applied: as an id list from the borrower index, or as a
+     * LIKE term when the index matches too many loans or the user's portfolio is too
+     * large to index. Null means nothing can match.
+     */
+    private SearchMatch resolveSearch(User user, String search) {
+        if (search == null) {
+            return new SearchMatch(null, null);
+        }
+        Set<Long> ids = borrowerSearchIndex.search(user, search);
+        if (ids == null || ids.size() > MAX_INDEXED_MATCHES) {
+            return new SearchMatch(search, null);
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+        return new SearchMatch(null, ids);
+    }
+
+    // ids set: restrict to those loans with the ...ByIds queries; otherwise filter by likeTerm (may be null)
+    private record SearchMatch(String likeTerm, Collection<Long> ids) {}
+
     @Transactional(readOnly = true)
     public Map<String, Object> getFilterCounts(User user) {
-        Map<String, Object> counts = new HashMap<>();
-        
-        // Status counts
         Map<String, Long> statusCounts = new HashMap<>();
         for (Loan.LoanStatus status : Loan.LoanStatus.values()) {
-            statusCounts.put(status.name(), loanRepository.countByUserAndStatus(user, status));
+            statusCounts.put(status.name(), 0L);
         }
-        counts.put("byStatus", statusCounts);
-        
-        // Frequency counts
         Map<String, Long> frequencyCounts = new HashMap<>();
         for (Loan.InterestFrequency frequency : Loan.InterestFrequency.values()) {
-            frequencyCounts.put(frequency.name(), loanRepository.countByUserAndInterestFrequency(user, frequency));
+            frequencyCounts.put(frequency.name(), 0L);
+        }
+        
+        // One GROUP BY (status, frequency) query; fold each row into both breakdowns
+        for (LoanFilterCount row : loanRepository.countByStatusAndFrequency(user)) {
+            statusCounts.merge(row.getStatus().name(), row.getLoanCount(), Long::sum);
+            frequencyCounts.merge(row.getFrequency().name(), row.getLoanCount(), Long::sum);
         }
-        counts.put("byFrequency", frequencyCounts);
         
+        Map<String, Object> counts = new HashMap<>();
+        counts.put("byStatus", statusCounts);
+        counts.put("byFrequency", frequencyCounts);
         return counts;
     }
 
     @Transactional(readOnly = true)
-    public List<Loan> getActiveLoans(User user) {
-        return loanRepository.findByUserAndStatus(user, Loan.LoanStatus.ACTIVE);
+    public List<LoanResponse> getActiveLoans(User user) {
+        return findLoans(user, LoanFilter.builder().status(Loan.LoanStatus.ACTIVE).build(), null, Pageable.unpaged());
     }
 
+    // Primary-key lookup so repeat reads are served from the second-level cache;
+    // the owner check reads the foreign key without initializing the user
     @Transactional(readOnly = true)
     public Loan getLoanById(Long id, User user) {
-        return loanRepository.findByIdAndUser(id, user)
+        return loanRepository.findById(id)
+                .filter(loan -> loan.getUser() != null && Objects.equals(loan.getUser().getId(), user.getId()))
                 .orElseThrow(() -> new LoanNotFoundException(id));
     }
 
     public Loan updateLoan(Long id, Loan loanDetails, User user) {
-        Loan existingLoan = getLoanById(id, user);
+        Loan existingLoan = lockLoan(id, user);
         Loan.LoanStatus previousStatus = existingLoan.getStatus();
+        LoanSnapshot before = LoanSnapshot.of(existingLoan);
         
         existingLoan.setBorrowerName(loanDetails.getBorrowerName());
         existingLoan.setBorrowerPhone(loanDetails.getBorrowerPhone());
@@ -146,100 +289,85 @@ public class LoanService {
         existingLoan.setTotalPrincipalReceived(loanDetails.getTotalPrincipalReceived());
         existingLoan.setNotes(loanDetails.getNotes());
         existingLoan.setStatus(loanDetails.getStatus());
+        DelinquencyService.refreshNextDueDate(existingLoan, LocalDate.now());
         
         Loan savedLoan = loanRepository.save(existingLoan);
+        portfolioSummaryService.onLoanChanged(user, before, LoanSnapshot.of(savedLoan));
+        cashFlowForecastService.invalidate(user);
+        borrowerSearchIndex.onLoanSaved(user, savedLoan);
+        if (previousStatus != savedLoan.getStatus()) {
+            activityService.loanStatusChanged(user, savedLoan, previousStatus);
+        }
         
-        // Send email notification if loan is being closed
+        // Queue email notification if loan is being closed
         if (previousStatus != Loan.LoanStatus.CLOSED && loanDetails.getStatus() == Loan.LoanStatus.CLOSED) {
-            try {
-                emailService.sendLoanClosedEmail(
-                    user.getEmail(),
-                    user.getName(),
-                    savedLoan.getBorrowerName(),
-                    savedLoan.getPrincipalAmount(),
-                    savedLoan.getTotalInterestReceived() != null ? savedLoan.getTotalInterestReceived() : BigDecimal.ZERO,
-                    savedLoan.getTotalPrincipalReceived() != null ? savedLoan.getTotalPrincipalReceived() : BigDecimal.ZERO
-                );
-            } catch (Exception e) {
-                // Log but don't fail the operation
-            }
+            emailService.sendLoanClosedEmail(
+                user.getEmail(),
+                user.getName(),
+                savedLoan.getBorrowerName(),
+                savedLoan.getPrincipalAmount(),
+                savedLoan.getTotalInterestReceived() != null ? savedLoan.getTotalInterestReceived() : BigDecimal.ZERO,
+                savedLoan.getTotalPrincipalReceived() != null ? savedLoan.getTotalPrincipalReceived() : BigDecimal.ZERO
+            );
         }
         
         return savedLoan;
     }
 
     public void deleteLoan(Long id, User user) {
-        Loan loan = getLoanById(id, user);
+        Loan loan = lockLoan(id, user);
+        LoanSnapshot before = LoanSnapshot.of(loan);
         paymentHistoryRepository.deleteByLoanId(id);
         loanRepository.delete(loan);
+        portfolioSummaryService.onLoanChanged(user, before, null);
+        cashFlowForecastService.invalidate(user);
+        borrowerSearchIndex.onLoanDeleted(user, id);
+        activityService.loanDeleted(user, loan);
     }
 
-    // Dashboard Analytics
+    // Dashboard Analytics - totals come from the incrementally maintained PortfolioSummary
     @Transactional(readOnly = true)
     public Map<String, Object> getDashboardStats(User user) {
-        List<Loan> allLoans = loanRepository.findByUser(user);
-        List<Loan> activeLoans = allLoans.stream()
-                .filter(l -> l.getStatus() == Loan.LoanStatus.ACTIVE)
-                .collect(Collectors.toList());
+        PortfolioSummary summary = portfolioSummaryService.getSummary(user);
 
         Map<String, Object> stats = new HashMap<>();
         
         // Total counts
-        stats.put("totalLoans", allLoans.size());
-        stats.put("activeLoans", activeLoans.size());
-        stats.put("closedLoans", allLoans.stream()
-                .filter(l -> l.getStatus() == Loan.LoanStatus.CLOSED).count());
+        stats.put("totalLoans", summary.getTotalLoans());
+        stats.put("activeLoans", summary.getActiveLoans());
+        stats.put("closedLoans", summary.getClosedLoans());
         
         // Financial summaries - Money you've lent out that's still outstanding
-        BigDecimal totalLentOut = activeLoans.stream()
-                .map(Loan::getPrincipalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalLentOut", totalLentOut);
-        
-        // Interest you've received back
-        BigDecimal totalInterestReceived = allLoans.stream()
-                .map(l -> l.getTotalInterestReceived() != null ? l.getTotalInterestReceived() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalInterestReceived", totalInterestReceived);
+        stats.put("totalLentOut", summary.getTotalLentOut());
         
-        // Principal you've received back
-        BigDecimal totalPrincipalReceived = allLoans.stream()
-                .map(l -> l.getTotalPrincipalReceived() != null ? l.getTotalPrincipalReceived() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalPrincipalReceived", totalPrincipalReceived);
+        // Interest and principal you've received back
+        stats.put("totalInterestReceived", summary.getTotalInterestReceived());
+        stats.put("totalPrincipalReceived", summary.getTotalPrincipalReceived());
         
         // Average interest rate
-        double avgInterestRate = activeLoans.stream()
-                .mapToDouble(Loan::getInterestRate)
-                .average()
-                .orElse(0.0);
-        stats.put("averageInterestRate", Math.round(avgInterestRate * 100.0) / 100.0);
+        stats.put("averageInterestRate", portfolioSummaryService.getAverageInterestRate(summary).doubleValue());
         
-        // Monthly interest expected (to receive)
-        BigDecimal monthlyInterestExpected = calculateTotalMonthlyInterest(activeLoans);
-        stats.put("monthlyInterestExpected", monthlyInterestExpected);
+        // Monthly interest expected (MONTHLY loans only)
+        stats.put("monthlyInterestExpected", portfolioSummaryService.getMonthlyInterestExpected(summary));
         
         // Loans by frequency
-        Map<String, Long> loansByFrequency = activeLoans.stream()
-                .collect(Collectors.groupingBy(
-                        l -> l.getInterestFrequency().toString(),
-                        Collectors.counting()
-                ));
+        Map<String, Long> loansByFrequency = new HashMap<>();
+        for (Loan.InterestFrequency frequency : Loan.InterestFrequency.values()) {
+            long count = summary.getLoanCount(frequency);
+            if (count > 0) {
+                loansByFrequency.put(frequency.toString(), count);
+            }
+        }
         stats.put("loansByFrequency", loansByFrequency);
         
         // Top borrowers (people who owe you the most)
-        List<Map<String, Object>> topBorrowers = activeLoans.stream()
-                .collect(Collectors.groupingBy(
-                        Loan::getBorrowerName,
-                        Collectors.reducing(BigDecimal.ZERO, Loan::getPrincipalAmount, BigDecimal::add)
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-                .limit(5)
-                .map(e -> {
+        List<Map<String, Object>> topBorrowers = loanRepository
+                .findTopBorrowers(user, Loan.LoanStatus.ACTIVE, PageRequest.of(0, TOP_BORROWER_LIMIT))
+                .stream()
+                .map(b -> {
                     Map<String, Object> borrower = new HashMap<>();
-                    borrower.put("name", e.getKey());
-                    borrower.put("totalAmount", e.getValue());
+                    borrower.put("name", b.getName());
+                    borrower.put("totalAmount", b.getTotalAmount());
                     return borrower;
                 })
                 .collect(Collectors.toList());
@@ -248,37 +376,18 @@ public class LoanService {
         return stats;
     }
 
-    private BigDecimal calculateTotalMonthlyInterest(List<Loan> loans) {
-        BigDecimal total = BigDecimal.ZERO;
-        for (Loan loan : loans) {
-            // Only include loans with MONTHLY frequency in monthly interest calculation
-            if (loan.getInterestFrequency() == Loan.InterestFrequency.MONTHLY) {
-                BigDecimal monthlyInterest = calculateMonthlyInterest(loan);
-                total = total.add(monthlyInterest);
-            }
-        }
-        return total.setScale(2, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal calculateMonthlyInterest(Loan loan) {
-        BigDecimal principal = loan.getPrincipalAmount();
-        double annualRate = loan.getInterestRate() / 100.0;
-        
-        return switch (loan.getInterestFrequency()) {
-            case DAILY -> principal.multiply(BigDecimal.valueOf(annualRate / 365 * 30));
-            case WEEKLY -> principal.multiply(BigDecimal.valueOf(annualRate / 52 * 4.33));
-            case BIWEEKLY -> principal.multiply(BigDecimal.valueOf(annualRate / 26 * 2.17));
-            case MONTHLY -> principal.multiply(BigDecimal.valueOf(annualRate / 12));
-            case QUARTERLY -> principal.multiply(BigDecimal.valueOf(annualRate / 4 / 3));
-            case YEARLY -> principal.multiply(BigDecimal.valueOf(annualRate / 12));
-        };
-    }
-
     // Record interest received from borrower with history
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Loan recordInterestReceived(Long id, PaymentRequest request, User user) {
-        Loan loan = getLoanById(id, user);
+        return inPaymentTransaction(transactionManager, () -> applyInterestReceived(id, request, user));
+    }
+
+    private Loan applyInterestReceived(Long id, PaymentRequest request, User user) {
+        Loan loan = lockLoan(id, user);
+        LoanSnapshot before = LoanSnapshot.of(loan);
         BigDecimal currentReceived = loan.getTotalInterestReceived() != null ? loan.getTotalInterestReceived() : BigDecimal.ZERO;
         loan.setTotalInterestReceived(currentReceived.add(request.getAmount()));
+        DelinquencyService.refreshNextDueDate(loan, LocalDate.now());
         
         // Create payment history record
         PaymentHistory history = PaymentHistory.builder()
@@ -290,12 +399,22 @@ public class LoanService {
                 .build();
         paymentHistoryRepository.save(history);
         
-        return loanRepository.save(loan);
+        Loan savedLoan = loanRepository.save(loan);
+        portfolioSummaryService.onLoanChanged(user, before, LoanSnapshot.of(savedLoan));
+        cashFlowForecastService.invalidate(user);
+        activityService.paymentRecorded(user, savedLoan, PaymentHistory.PaymentType.INTEREST, request.getAmount());
+        return savedLoan;
     }
 
     // Record principal received from borrower with history
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Loan recordPrincipalReceived(Long id, PaymentRequest request, User user) {
-        Loan loan = getLoanById(id, user);
+        return inPaymentTransaction(transactionManager, () -> applyPrincipalReceived(id, request, user));
+    }
+
+    private Loan applyPrincipalReceived(Long id, PaymentRequest request, User user) {
+        Loan loan = lockLoan(id, user);
+        LoanSnapshot before = LoanSnapshot.of(loan);
         BigDecimal currentReceived = loan.getTotalPrincipalReceived() != null ? loan.getTotalPrincipalReceived() : BigDecimal.ZERO;
         loan.setTotalPrincipalReceived(currentReceived.add(request.getAmount()));
         
@@ -313,24 +432,70 @@ public class LoanService {
         if (currentReceived.add(request.getAmount()).compareTo(loan.getPrincipalAmount()) >= 0) {
             loan.setStatus(Loan.LoanStatus.CLOSED);
             
-            // Send email notification for loan closure
+            // Queue email notification for loan closure
+            emailService.sendLoanClosedEmail(
+                loan.getUser().getEmail(),
+                loan.getUser().getName(),
+                loan.getBorrowerName(),
+                loan.getPrincipalAmount(),
+                loan.getTotalInterestReceived() != null ? loan.getTotalInterestReceived() : BigDecimal.ZERO,
+                loan.getTotalPrincipalReceived() != null ? loan.getTotalPrincipalReceived() : BigDecimal.ZERO
+            );
+        }
+        DelinquencyService.refreshNextDueDate(loan, LocalDate.now());
+        Loan savedLoan = loanRepository.save(loan);
+        portfolioSummaryService.onLoanChanged(user, before, LoanSnapshot.of(savedLoan));
+        cashFlowForecastService.invalidate(user);
+        activityService.paymentRecorded(user, savedLoan, PaymentHistory.PaymentType.PRINCIPAL, request.getAmount());
+        if (before.status() != savedLoan.getStatus()) {
+            activityService.loanStatusChanged(user, savedLoan, before.status());
+        }
+        return savedLoan;
+    }
+    
+    // Same owner check as getLoanById, but the row is read from the database and locked
+    // until the transaction commits. Payments, edits and deletes all take it before the
+    // portfolio summary lock, so two writers to the same loan cannot deadlock.
+    private Loan lockLoan(Long id, User user) {
+        return loanRepository.findByIdForUpdate(id)
+                .filter(loan -> loan.getUser() != null && Objects.equals(loan.getUser().getId(), user.getId()))
+                .orElseThrow(() -> new LoanNotFoundException(id));
+    }
+
+    /**
+     * Run a payment in its own transaction. The loan row is locked before its
+     * totals are read, so payments to the same loan queue behind each other
+     * and each one adds to the totals the previous one committed. The @Version
+     * check stays as a backstop against writers that do not take the lock; a
+     * payment that loses it, or hits a lock timeout or deadlock, is replayed
+     * after a short jittered pause. Inside a caller's transaction the payment
+     * joins it and a conflict is left to the caller. Shared with
+     * PaymentBatchService.
+     */
+    static <T> T inPaymentTransaction(PlatformTransactionManager transactionManager, Supplier<T> payment) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return payment.get();
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
             try {
-                emailService.sendLoanClosedEmail(
-                    loan.getUser().getEmail(),
-                    loan.getUser().getName(),
-                    loan.getBorrowerName(),
-                    loan.getPrincipalAmount(),
-                    loan.getTotalInterestReceived() != null ? loan.getTotalInterestReceived() : BigDecimal.ZERO,
-                    loan.getTotalPrincipalReceived() != null ? loan.getTotalPrincipalReceived() : BigDecimal.ZERO
-                );
-            } catch (Exception e) {
-                // Log but don't fail the operation
+                return tx.execute(status -> payment.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_PAYMENT_ATTEMPTS) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, PAYMENT_RETRY_BACKOFF_MS * attempt + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
             }
         }
-        return loanRepository.save(loan);
     }
-    
+
     // Legacy methods for backwards compatibility
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Loan recordInterestReceived(Long id, BigDecimal amount, User user) {
         PaymentRequest request = new PaymentRequest();
         request.setAmount(amount);
@@ -338,6 +503,7 @@ public class LoanService {
         return recordInterestReceived(id, request, user);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Loan recordPrincipalReceived(Long id, BigDecimal amount, User user) {
         PaymentRequest request = new PaymentRequest();
         request.setAmount(amount);
@@ -355,18 +521,45 @@ public class LoanService {
                 .collect(Collectors.toList());
     }
     
-    // Get all payment history for user
+    // Get all payment history for user, newest first.
+    // Without cursor/limit the full history is returned (legacy behaviour);
+    // otherwise one keyset page of at most MAX_PAGE_SIZE rows.
     @Transactional(readOnly = true)
-    public List<PaymentHistoryResponse> getAllPaymentHistory(User user) {
-        List<Loan> userLoans = loanRepository.findByUser(user);
-        List<Long> loanIds = userLoans.stream().map(Loan::getId).collect(Collectors.toList());
-        
-        return paymentHistoryRepository.findAll()
-                .stream()
-                .filter(ph -> loanIds.contains(ph.getLoan().getId()))
-                .sorted((a, b) -> b.getPaymentDate().compareTo(a.getPaymentDate()))
+    public CursorPage<PaymentHistoryResponse> getAllPaymentHistory(User user, String cursor, Integer limit) {
+        KeysetCursor before = KeysetCursor.parse(cursor);
+
+        if (before == null && limit == null) {
+            List<PaymentHistoryResponse> all = paymentHistoryRepository
+                    .findByUserBefore(user, null, null, Pageable.unpaged())
+                    .stream()
+                    .map(PaymentHistoryResponse::fromEntity)
+                    .collect(Collectors.toList());
+            return new CursorPage<>(all, null);
+        }
+
+        int pageSize = pageSize(limit);
+        List<PaymentHistory> rows = paymentHistoryRepository
+                .findByUserBefore(user,
+                        before != null ? before.date() : null,
+                        before != null ? before.id() : null,
+                        PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            PaymentHistory last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getPaymentDate(), last.getId()).encode();
+        }
+        List<PaymentHistoryResponse> items = rows.stream()
                 .map(PaymentHistoryResponse::fromEntity)
                 .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
     
     // Interest Calculator
@@ -0,0 +1,219 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.BatchPaymentRequest;
+import com.lendtracker.dto.BatchPaymentResult;
+import com.lendtracker.dto.BatchPaymentResult.ItemResult;
+import com.lendtracker.dto.LoanResponse;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.service.PortfolioSummaryService.LoanSnapshot;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Records many interest and principal payments across a user's loans in one
+ * transaction.
+ *
+ * The loans are read and locked with a single IN query and the payment
+ * history rows are written with JDBC batch statements, as PaymentHistory's
+ * IDENTITY ids stop Hibernate from batching them. Totals, closure, the next
+ * due date and the portfolio summary are then updated once per loan rather
+ * than once per payment. Like single payments, a batch that still loses a
+ * @Version check or a lock wait is replayed as a whole.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentBatchService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO payment_history (loan_id, amount, payment_type, payment_date, notes, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final LoanRepository loanRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PortfolioSummaryService portfolioSummaryService;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final ActivityService activityService;
+    private final EmailService emailService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Apply every valid item and report each one. Items naming a loan the user
+     * does not own, or with a missing type or non-positive amount, are
+     * rejected individually; the rest are recorded together.
+     */
+    public BatchPaymentResult recordPayments(User user, List<BatchPaymentRequest.Item> items) {
+        return LoanService.inPaymentTransaction(transactionManager, () -> apply(user, items));
+    }
+
+    private BatchPaymentResult apply(User user, List<BatchPaymentRequest.Item> items) {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        Set<Long> loanIds = items.stream()
+                .map(BatchPaymentRequest.Item::getLoanId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Loan> loans = loanIds.isEmpty() ? Map.of() : loanRepository.findByUserAndIdInForUpdate(user, loanIds)
+                .stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        // Each touched loan's state before its first payment in this batch, in request order
+        Map<Long, LoanSnapshot> before = new LinkedHashMap<>();
+        List<PaymentHistory> payments = new ArrayList<>();
+        List<ItemResult> results = new ArrayList<>(items.size());
+        BigDecimal totalInterest = BigDecimal.ZERO;
+        BigDecimal totalPrincipal = BigDecimal.ZERO;
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchPaymentRequest.Item item = items.get(i);
+            Loan loan = item.getLoanId() != null ? loans.get(item.getLoanId()) : null;
+            PaymentHistory.PaymentType type = parseType(item.getType());
+            String error = loan == null ? "Loan not found with id: " + item.getLoanId()
+                    : type == null ? "Payment type must be INTEREST or PRINCIPAL"
+                    : item.getAmount() == null || item.getAmount().signum() <= 0 ? "Amount must be greater than 0"
+                    : null;
+            if (error != null) {
+                results.add(new ItemResult(i, item.getLoanId(), false, error));
+                continue;
+            }
+
+            before.computeIfAbsent(loan.getId(), id -> LoanSnapshot.of(loan));
+            if (type == PaymentHistory.PaymentType.INTEREST) {
+                loan.setTotalInterestReceived(orZero(loan.getTotalInterestReceived()).add(item.getAmount()));
+                totalInterest = totalInterest.add(item.getAmount());
+            } else {
+                loan.setTotalPrincipalReceived(orZero(loan.getTotalPrincipalReceived()).add(item.getAmount()));
+                totalPrincipal = totalPrincipal.add(item.getAmount());
+            }
+            payments.add(PaymentHistory.builder()
+                    .loan(loan)
+                    .amount(item.getAmount())
+                    .paymentType(type)
+                    .paymentDate(item.getPaymentDate() != null ? item.getPaymentDate() : today)
+                    .notes(item.getNotes())
+                    .createdAt(now)
+                    .build());
+            results.add(new ItemResult(i, loan.getId(), true, null));
+        }
+
+        List<LoanResponse> touched = new ArrayList<>(before.size());
+        if (!payments.isEmpty()) {
+            insertPayments(payments);
+            List<LoanSnapshot> after = new ArrayList<>(before.size());
+            for (Map.Entry<Long, LoanSnapshot> entry : before.entrySet()) {
+                Loan loan = loans.get(entry.getKey());
+                closeIfRepaid(user, loan);
+                DelinquencyService.refreshNextDueDate(loan, today);
+                after.add(LoanSnapshot.of(loan));
+                if (entry.getValue().status() != loan.getStatus()) {
+                    activityService.loanStatusChanged(user, loan, entry.getValue().status());
+                }
+                touched.add(LoanResponse.fromEntity(loan));
+            }
+            portfolioSummaryService.onLoansChanged(user, before.values(), after);
+            cashFlowForecastService.invalidate(user);
+            activityService.paymentsRecorded(user, payments.size(), totalInterest.add(totalPrincipal));
+            evictCachedHistoryAfterCommit();
+        }
+        log.info("Recorded {} payments on {} loans ({} rejected) for user {} in {} ms",
+                payments.size(), before.size(), items.size() - payments.size(), user.getId(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return BatchPaymentResult.builder()
+                .totalCount(items.size())
+                .recordedCount(payments.size())
+                .failedCount(items.size() - payments.size())
+                .totalInterest(totalInterest)
+                .totalPrincipal(totalPrincipal)
+                .results(results)
+                .loans(touched)
+                .build();
+    }
+
+    private void closeIfRepaid(User user, Loan loan) {
+        if (loan.getStatus() == Loan.LoanStatus.CLOSED
+                || orZero(loan.getTotalPrincipalReceived()).compareTo(loan.getPrincipalAmount()) < 0) {
+            return;
+        }
+        loan.setStatus(Loan.LoanStatus.CLOSED);
+        emailService.sendLoanClosedEmail(
+                user.getEmail(),
+                user.getName(),
+                loan.getBorrowerName(),
+                loan.getPrincipalAmount(),
+                orZero(loan.getTotalInterestReceived()),
+                orZero(loan.getTotalPrincipalReceived()));
+    }
+
+    private void insertPayments(List<PaymentHistory> payments) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setLong(1, payment.getLoan().getId());
+            ps.setBigDecimal(2, payment.getAmount());
+            ps.setString(3, payment.getPaymentType().name());
+            ps.setDate(4, Date.valueOf(payment.getPaymentDate()));
+            ps.setString(5, payment.getNotes());
+            ps.setTimestamp(6, Timestamp.valueOf(payment.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Hibernate does not see the JDBC inserts, so cached payment history query
+     * results would stay stale until they expire. Drop them once the rows are
+     * visible to other transactions.
+     */
+    private void evictCachedHistoryAfterCommit() {
+        Runnable evict = () -> entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private static PaymentHistory.PaymentType parseType(String type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return PaymentHistory.PaymentType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,352 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PortfolioSummary;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.PortfolioSummaryRepository;
+import com.lendtracker.repository.UserRepository;
+import com.lendtracker.repository.projection.LoanFrequencySummary;
+import com.lendtracker.repository.projection.LoanStatusSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the per-user PortfolioSummary row in step with the loans table.
+ *
+ * LoanService reports every loan change as a before/after snapshot and the
+ * difference is applied to the summary inside the same transaction, so the
+ * dashboard only needs a primary-key lookup. A scheduled job rebuilds each
+ * summary from the loans table and corrects any drift.
+ *
+ * The row is created empty when the user registers. Users from before the
+ * table existed get theirs from the first loan write, which locks the user
+ * row so concurrent first writes queue instead of inserting the same key,
+ * or from the nightly reconcile.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioSummaryService {
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+    private static final int RATE_SCALE = 6;
+
+    private final PortfolioSummaryRepository summaryRepository;
+    private final LoanRepository loanRepository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * The fields of a loan that contribute to the summary, captured before a
+     * mutation so the old contribution can be subtracted afterwards.
+     */
+    public record LoanSnapshot(
+            Loan.LoanStatus status,
+            Loan.InterestFrequency frequency,
+            BigDecimal principalAmount,
+            Double interestRate,
+            BigDecimal interestReceived,
+            BigDecimal principalReceived
+    ) {
+        public static LoanSnapshot of(Loan loan) {
+            return new LoanSnapshot(
+                    loan.getStatus(),
+                    loan.getInterestFrequency(),
+                    loan.getPrincipalAmount(),
+                    loan.getInterestRate(),
+                    loan.getTotalInterestReceived(),
+                    loan.getTotalPrincipalReceived());
+        }
+    }
+
+    /**
+     * Apply a loan change to the owner's summary. Either snapshot may be null
+     * (create / delete). Must run inside the caller's write transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onLoanChanged(User user, LoanSnapshot before, LoanSnapshot after) {
+        PortfolioSummary summary = lockSummary(user);
+        if (summary == null) {
+            return;
+        }
+        if (before != null) {
+            apply(summary, before, -1);
+        }
+        if (after != null) {
+            apply(summary, after, 1);
+        }
+        summaryRepository.save(summary);
+    }
+
+    /**
+     * Add a batch of newly inserted loans (bulk import) under one summary row lock.
+     * The loans must already be written in the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onLoansCreated(User user, Collection<LoanSnapshot> created) {
+        PortfolioSummary summary = lockSummary(user);
+        if (summary == null) {
+            return;
+        }
+        for (LoanSnapshot loan : created) {
+            apply(summary, loan, 1);
+        }
+        summaryRepository.save(summary);
+    }
+
+    /**
+     * Apply several loan changes (a payment batch) under one summary row lock.
+     * The snapshots are each loan's state before and after the batch.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onLoansChanged(User user, Collection<LoanSnapshot> before, Collection<LoanSnapshot> after) {
+        PortfolioSummary summary = lockSummary(user);
+        if (summary == null) {
+            return;
+        }
+        for (LoanSnapshot loan : before) {
+            apply(summary, loan, -1);
+        }
+        for (LoanSnapshot loan : after) {
+            apply(summary, loan, 1);
+        }
+        summaryRepository.save(summary);
+    }
+
+    /**
+     * Empty summary for a user who has just registered, written in the
+     * registration transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createEmpty(User user) {
+        summaryRepository.save(PortfolioSummary.builder().userId(user.getId()).build());
+    }
+
+    /**
+     * Summary for the dashboard. A user without a row yet is summarised from
+     * the loans table without storing it; the row is created by the next loan
+     * write or the nightly reconcile.
+     */
+    @Transactional(readOnly = true)
+    public PortfolioSummary getSummary(User user) {
+        return summaryRepository.findById(user.getId()).orElseGet(() -> rebuild(user));
+    }
+
+    /**
+     * The user's summary row, locked for update. If there is none, the user
+     * row is locked so concurrent first writes for the same user queue here,
+     * and the summary is created from the loans table, which already includes
+     * the caller's flushed change; null is returned as there is nothing left
+     * to apply.
+     */
+    private PortfolioSummary lockSummary(User user) {
+        PortfolioSummary summary = summaryRepository.findByUserIdForUpdate(user.getId()).orElse(null);
+        if (summary != null) {
+            return summary;
+        }
+        return createIfMissing(user.getId()) ? null : summaryRepository.findByUserIdForUpdate(user.getId()).orElseThrow();
+    }
+
+    // True if this call created the row; false if another transaction had committed it first
+    private boolean createIfMissing(Long userId) {
+        User user = userRepository.findByIdForUpdate(userId).orElseThrow();
+        if (summaryRepository.findByUserIdForUpdate(userId).isPresent()) {
+            return false;
+        }
+        summaryRepository.save(rebuild(user));
+        return true;
+    }
+
+    public BigDecimal getAverageInterestRate(PortfolioSummary summary) {
+        if (summary.getActiveLoans() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return summary.getActiveRateTotal()
+                .divide(BigDecimal.valueOf(summary.getActiveLoans()), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getMonthlyInterestExpected(PortfolioSummary summary) {
+        return summary.getMonthlyWeightedRateTotal()
+                .divide(BigDecimal.valueOf(1200), 2, RoundingMode.HALF_UP);
+    }
+
+    private void apply(PortfolioSummary summary, LoanSnapshot loan, int sign) {
+        BigDecimal signum = BigDecimal.valueOf(sign);
+        summary.addStatusCount(loan.status(), sign);
+        summary.setTotalInterestReceived(summary.getTotalInterestReceived()
+                .add(orZero(loan.interestReceived()).multiply(signum)));
+        summary.setTotalPrincipalReceived(summary.getTotalPrincipalReceived()
+                .add(orZero(loan.principalReceived()).multiply(signum)));
+
+        if (loan.status() != Loan.LoanStatus.ACTIVE) {
+            return;
+        }
+        BigDecimal rate = BigDecimal.valueOf(loan.interestRate());
+        summary.addLoanCount(loan.frequency(), sign);
+        summary.setTotalLentOut(summary.getTotalLentOut().add(loan.principalAmount().multiply(signum)));
+        summary.setActiveRateTotal(summary.getActiveRateTotal().add(rate.multiply(signum))
+                .setScale(RATE_SCALE, RoundingMode.HALF_UP));
+        if (loan.frequency() == Loan.InterestFrequency.MONTHLY) {
+            summary.setMonthlyWeightedRateTotal(summary.getMonthlyWeightedRateTotal()
+                    .add(loan.principalAmount().multiply(rate).multiply(signum))
+                    .setScale(RATE_SCALE, RoundingMode.HALF_UP));
+        }
+    }
+
+    // ==================== REBUILD / RECONCILE ====================
+
+    /**
+     * Compute a fresh summary for the user from aggregate queries over the loans table.
+     */
+    public PortfolioSummary rebuild(User user) {
+        PortfolioSummary summary = PortfolioSummary.builder().userId(user.getId()).build();
+
+        for (LoanStatusSummary row : loanRepository.summarizeByStatus(user)) {
+            summary.addStatusCount(row.getStatus(), row.getLoanCount());
+            summary.setTotalInterestReceived(summary.getTotalInterestReceived().add(orZero(row.getInterestReceived())));
+            summary.setTotalPrincipalReceived(summary.getTotalPrincipalReceived().add(orZero(row.getPrincipalReceived())));
+            if (row.getStatus() == Loan.LoanStatus.ACTIVE) {
+                summary.setTotalLentOut(orZero(row.getPrincipalTotal()));
+                double rateTotal = row.getAverageInterestRate() != null
+                        ? row.getAverageInterestRate() * row.getLoanCount() : 0.0;
+                summary.setActiveRateTotal(BigDecimal.valueOf(rateTotal).setScale(RATE_SCALE, RoundingMode.HALF_UP));
+            }
+        }
+
+        for (LoanFrequencySummary row : loanRepository.summarizeByFrequency(user, Loan.LoanStatus.ACTIVE)) {
+            summary.addLoanCount(row.getFrequency(), row.getLoanCount());
+            if (row.getFrequency() == Loan.InterestFrequency.MONTHLY && row.getWeightedRateTotal() != null) {
+                summary.setMonthlyWeightedRateTotal(BigDecimal.valueOf(row.getWeightedRateTotal())
+                        .setScale(RATE_SCALE, RoundingMode.HALF_UP));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Walk every summary row and overwrite any that disagree with the loans table.
+     * Each user is reconciled in its own short transaction holding the summary row
+     * lock, so concurrent loan writes queue behind it instead of being overwritten.
+     */
+    @Scheduled(cron = "${app.portfolio-summary.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int created = createMissing(tx);
+        long lastUserId = 0L;
+        int corrected = 0;
+        int checked = 0;
+
+        while (true) {
+            List<Long> userIds = summaryRepository.findUserIdsAfter(lastUserId, PageRequest.of(0, RECONCILE_BATCH_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            for (Long userId : userIds) {
+                Boolean fixed = tx.execute(status -> reconcile(userId));
+                if (Boolean.TRUE.equals(fixed)) {
+                    corrected++;
+                }
+                checked++;
+            }
+            lastUserId = userIds.get(userIds.size() - 1);
+        }
+
+        log.info("Portfolio summary reconcile finished: {} created, {} checked, {} corrected",
+                created, checked, corrected);
+    }
+
+    // Summaries for users that have none yet, one short transaction per user
+    private int createMissing(TransactionTemplate tx) {
+        long lastUserId = 0L;
+        int created = 0;
+        while (true) {
+            List<Long> userIds = summaryRepository.findUserIdsWithoutSummaryAfter(lastUserId,
+                    PageRequest.of(0, RECONCILE_BATCH_SIZE));
+            if (userIds.isEmpty()) {
+                return created;
+            }
+            for (Long userId : userIds) {
+                if (Boolean.TRUE.equals(tx.execute(status -> createIfMissing(userId)))) {
+                    created++;
+                }
+            }
+            lastUserId = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    private boolean reconcile(Long userId) {
+        PortfolioSummary current = summaryRepository.findByUserIdForUpdate(userId).orElse(null);
+        if (current == null) {
+            return false;
+        }
+        PortfolioSummary expected = rebuild(userRepository.getReferenceById(userId));
+        if (matches(current, expected)) {
+            return false;
+        }
+
+        log.warn("Portfolio summary drift for user {} - rebuilding from loans table", userId);
+        copyTotals(expected, current);
+        summaryRepository.save(current);
+        return true;
+    }
+
+    private boolean matches(PortfolioSummary a, PortfolioSummary b) {
+        for (Loan.InterestFrequency frequency : Loan.InterestFrequency.values()) {
+            if (a.getLoanCount(frequency) != b.getLoanCount(frequency)) {
+                return false;
+            }
+        }
+        return a.getActiveLoans() == b.getActiveLoans()
+                && a.getClosedLoans() == b.getClosedLoans()
+                && a.getDefaultedLoans() == b.getDefaultedLoans()
+                && sameAmount(a.getTotalLentOut(), b.getTotalLentOut())
+                && sameAmount(a.getTotalInterestReceived(), b.getTotalInterestReceived())
+                && sameAmount(a.getTotalPrincipalReceived(), b.getTotalPrincipalReceived())
+                // Rebuilt rate totals come from floating-point AVG/SUM, so compare at 2 places
+                && sameAmount(scale2(a.getActiveRateTotal()), scale2(b.getActiveRateTotal()))
+                && sameAmount(scale2(a.getMonthlyWeightedRateTotal()), scale2(b.getMonthlyWeightedRateTotal()));
+    }
+
+    private void copyTotals(PortfolioSummary from, PortfolioSummary to) {
+        to.setActiveLoans(from.getActiveLoans());
+        to.setClosedLoans(from.getClosedLoans());
+        to.setDefaultedLoans(from.getDefaultedLoans());
+        to.setTotalLentOut(from.getTotalLentOut());
+        to.setTotalInterestReceived(from.getTotalInterestReceived());
+        to.setTotalPrincipalReceived(from.getTotalPrincipalReceived());
+        to.setActiveRateTotal(from.getActiveRateTotal());
+        to.setMonthlyWeightedRateTotal(from.getMonthlyWeightedRateTotal());
+        to.setDailyLoans(from.getDailyLoans());
+        to.setWeeklyLoans(from.getWeeklyLoans());
+        to.setBiweeklyLoans(from.getBiweeklyLoans());
+        to.setMonthlyLoans(from.getMonthlyLoans());
+        to.setQuarterlyLoans(from.getQuarterlyLoans());
+        to.setYearlyLoans(from.getYearlyLoans());
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return Objects.equals(a, b) || (a != null && b != null && a.compareTo(b) == 0);
+    }
+
+    private static BigDecimal scale2(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -2,32 +2,57 @@ package com.lendtracker.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.dto.BatchPaymentResult;
+import com.lendtracker.dto.BulkImportResult;
+import com.lendtracker.dto.CashFlowForecast;
+import com.lendtracker.dto.LoanResponse;
 import com.lendtracker.entity.Loan;
-import com.lendtracker.exception.GlobalExceptionHandler;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidScheduleException;
 import com.lendtracker.exception.LoanNotFoundException;
+import com.lendtracker.security.JwtAuthenticationFilter;
+import com.lendtracker.service.AmortizationService;
+import com.lendtracker.service.CashFlowForecastService;
+import com.lendtracker.service.LoanExportService;
+import com.lendtracker.service.LoanImportService;
 import com.lendtracker.service.LoanService;
+import com.lendtracker.service.PaymentBatchService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+// Security filters are off; the principal is put in the security context directly
 @WebMvcTest(LoanController.class)
+@AutoConfigureMockMvc(addFilters = false)
 class LoanControllerTest {
 
     @Autowired
@@ -36,11 +61,34 @@ class LoanControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @MockBean
+    private LoanImportService loanImportService;
+
+    @MockBean
+    private LoanExportService loanExportService;
+
+    @MockBean
+    private AmortizationService amortizationService;
+
+    @MockBean
+    private CashFlowForecastService cashFlowForecastService;
+
+    @MockBean
+    private PaymentBatchService paymentBatchService;
+
+    @MockBean
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
     private ObjectMapper objectMapper;
+    private User user;
     private Loan testLoan;
 
     @BeforeEach
     void setUp() {
+        user = User.builder().id(1L).email("lender@example.com").name("Lender").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
 
@@ -56,10 +104,15 @@ class LoanControllerTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     @DisplayName("POST /api/loans - Should create loan and return 201")
     void createLoan_Success() throws Exception {
-        when(loanService.createLoan(any(Loan.class))).thenReturn(testLoan);
+        when(loanService.createLoan(any(Loan.class), eq(user))).thenReturn(testLoan);
 
         mockMvc.perform(post("/api/loans")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -91,8 +144,8 @@ class LoanControllerTest {
     @Test
     @DisplayName("GET /api/loans - Should return all loans")
     void getAllLoans_Success() throws Exception {
-        List<Loan> loans = Arrays.asList(testLoan);
-        when(loanService.getAllLoans()).thenReturn(loans);
+        List<LoanResponse> loans = Arrays.asList(LoanResponse.fromEntity(testLoan));
+        when(loanService.getAllLoans(user)).thenReturn(loans);
 
         mockMvc.perform(get("/api/loans"))
                 .andExpect(status().isOk())
@@ -103,7 +156,7 @@ class LoanControllerTest {
     @Test
     @DisplayName("GET /api/loans/{id} - Should return loan by ID")
     void getLoanById_Success() throws Exception {
-        when(loanService.getLoanById(1L)).thenReturn(testLoan);
+        when(loanService.getLoanById(1L, user)).thenReturn(testLoan);
 
         mockMvc.perform(get("/api/loans/1"))
                 .andExpect(status().isOk())
@@ -114,7 +167,7 @@ class LoanControllerTest {
     @Test
     @DisplayName("GET /api/loans/{id} - Should return 404 when loan not found")
     void getLoanById_NotFound() throws Exception {
-        when(loanService.getLoanById(99L)).thenThrow(new LoanNotFoundException(99L));
+        when(loanService.getLoanById(99L, user)).thenThrow(new LoanNotFoundException(99L));
 
         mockMvc.perform(get("/api/loans/99"))
                 .andExpect(status().isNotFound())
@@ -124,7 +177,7 @@ class LoanControllerTest {
     @Test
     @DisplayName("PUT /api/loans/{id} - Should update loan")
     void updateLoan_Success() throws Exception {
-        when(loanService.updateLoan(eq(1L), any(Loan.class))).thenReturn(testLoan);
+        when(loanService.updateLoan(eq(1L), any(Loan.class), eq(user))).thenReturn(testLoan);
 
         mockMvc.perform(put("/api/loans/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -136,11 +189,164 @@ class LoanControllerTest {
     @Test
     @DisplayName("DELETE /api/loans/{id} - Should delete loan and return 204")
     void deleteLoan_Success() throws Exception {
-        doNothing().when(loanService).deleteLoan(1L);
+        doNothing().when(loanService).deleteLoan(1L, user);
 
         mockMvc.perform(delete("/api/loans/1"))
                 .andExpect(status().isNoContent());
 
-        verify(loanService, times(1)).deleteLoan(1L);
+        verify(loanService, times(1)).deleteLoan(1L, user);
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/bulk - Should import a CSV body")
+    void importLoans_Csv() throws Exception {
+        BulkImportResult result = BulkImportResult.builder()
+                .totalRows(2)
+                .importedCount(1)
+                .failedCount(1)
+                .totalPrincipal(new BigDecimal("5000.00"))
+                .errors(List.of(new BulkImportResult.RowError(2, "principal_amount is required")))
+                .completed(true)
+                .build();
+        when(loanImportService.importLoans(eq(user), any(InputStream.class), eq(LoanImportService.Format.CSV)))
+                .thenReturn(result);
+
+        mockMvc.perform(post("/api/loans/bulk")
+                        .contentType("text/csv")
+                        .content("borrower_name,principal_amount\nAsha,5000\nRavi,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/bulk - Should import newline-delimited JSON")
+    void importLoans_JsonLines() throws Exception {
+        when(loanImportService.importLoans(eq(user), any(InputStream.class), eq(LoanImportService.Format.JSON_LINES)))
+                .thenReturn(BulkImportResult.builder().totalRows(1).importedCount(1).completed(true).build());
+
+        mockMvc.perform(post("/api/loans/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"borrowerName\":\"Asha\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/loans/export - Should stream a CSV attachment")
+    void exportLoans_Success() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class)
+                    .write("id,borrower_name\n1,Test Borrower\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(loanExportService).exportLoansCsv(eq(user), any(OutputStream.class));
+
+        MvcResult started = mockMvc.perform(get("/api/loans/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"loans-" + LocalDate.now() + ".csv\""))
+                .andExpect(content().string("id,borrower_name\n1,Test Borrower\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/loans/{id}/schedule - Should return the amortization schedule")
+    void getSchedule_Success() throws Exception {
+        AmortizationSchedule schedule = AmortizationSchedule.builder()
+                .loanId(1L)
+                .method("COMPOUND")
+                .frequency("MONTHLY")
+                .periods(1)
+                .periodicRate(new BigDecimal("1"))
+                .principal(new BigDecimal("10000.00"))
+                .totalInterest(new BigDecimal("100.00"))
+                .totalPayment(new BigDecimal("10100.00"))
+                .entries(List.of(new AmortizationSchedule.Entry(1, LocalDate.of(2024, 2, 1),
+                        new BigDecimal("10000.00"), new BigDecimal("100.00"), new BigDecimal("10000.00"),
+                        new BigDecimal("10100.00"), BigDecimal.ZERO)))
+                .build();
+        when(amortizationService.getSchedule(1L, user, "compound", 1)).thenReturn(schedule);
+
+        mockMvc.perform(get("/api/loans/1/schedule").param("method", "compound").param("periods", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.method").value("COMPOUND"))
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.entries[0].payment").value(10100.00));
+    }
+
+    @Test
+    @DisplayName("GET /api/loans/{id}/schedule - Should return 400 for invalid parameters")
+    void getSchedule_Invalid() throws Exception {
+        when(amortizationService.getSchedule(1L, user, "balloon", null))
+                .thenThrow(new InvalidScheduleException("Unknown method: balloon"));
+
+        mockMvc.perform(get("/api/loans/1/schedule").param("method", "balloon"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown method: balloon"));
+    }
+
+    @Test
+    @DisplayName("GET /api/loans/forecast - Should return the cash-flow forecast")
+    void getForecast_Success() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        CashFlowForecast forecast = CashFlowForecast.builder()
+                .granularity("WEEK")
+                .from(from)
+                .to(from.plusWeeks(1))
+                .loanCount(1)
+                .totalInterest(new BigDecimal("50.00"))
+                .totalPrincipal(BigDecimal.ZERO)
+                .overduePrincipal(BigDecimal.ZERO)
+                .buckets(List.of(new CashFlowForecast.Bucket(from, from.plusWeeks(1),
+                        new BigDecimal("50.00"), BigDecimal.ZERO, new BigDecimal("50.00"))))
+                .build();
+        when(cashFlowForecastService.getForecast(user, 1, "week")).thenReturn(forecast);
+
+        mockMvc.perform(get("/api/loans/forecast").param("months", "1").param("granularity", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("WEEK"))
+                .andExpect(jsonPath("$.buckets", hasSize(1)))
+                .andExpect(jsonPath("$.buckets[0].total").value(50.00));
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/payments/batch - Should record a batch of payments")
+    void receivePayments_Success() throws Exception {
+        BatchPaymentResult result = BatchPaymentResult.builder()
+                .totalCount(2)
+                .recordedCount(1)
+                .failedCount(1)
+                .totalInterest(new BigDecimal("100.00"))
+                .totalPrincipal(BigDecimal.ZERO)
+                .results(List.of(new BatchPaymentResult.ItemResult(0, 1L, true, null),
+                        new BatchPaymentResult.ItemResult(1, 99L, false, "Loan not found with id: 99")))
+                .loans(List.of(LoanResponse.fromEntity(testLoan)))
+                .build();
+        when(paymentBatchService.recordPayments(eq(user), anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/loans/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[{\"loanId\":1,\"type\":\"INTEREST\",\"amount\":100},"
+                                + "{\"loanId\":99,\"type\":\"INTEREST\",\"amount\":100}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordedCount").value(1))
+                .andExpect(jsonPath("$.results[1].recorded").value(false))
+                .andExpect(jsonPath("$.loans", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("POST /api/loans/payments/batch - Should return 400 for an empty batch")
+    void receivePayments_Empty() throws Exception {
+        mockMvc.perform(post("/api/loans/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(paymentBatchService);
     }
 }
@@ -0,0 +1,71 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.dto.LoanResponse;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class LoanRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        owner = entityManager.persist(User.builder()
+                .name("Owner").email("owner@example.com").password("password").build());
+        for (int i = 1; i <= 3; i++) {
+            entityManager.persist(Loan.builder()
+                    .user(owner)
+                    .borrowerName("Borrower " + i)
+                    .principalAmount(new BigDecimal(i + "000.00"))
+                    .interestRate(12.0)
+                    .lendDate(LocalDate.of(2024, 1, i))
+                    .status(i == 3 ? Loan.LoanStatus.CLOSED : Loan.LoanStatus.ACTIVE)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Should select loan rows straight into LoanResponse without loading entities")
+    void searchAndFilter_ReturnsProjections() {
+        List<LoanResponse> active = loanRepository.searchAndFilter(owner, null, Loan.LoanStatus.ACTIVE, null,
+                null, null, null, null, null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(active).extracting(LoanResponse::borrowerName)
+                .containsExactlyInAnyOrder("Borrower 1", "Borrower 2");
+        assertThat(active).allSatisfy(loan -> {
+            assertThat(loan.status()).isEqualTo(Loan.LoanStatus.ACTIVE);
+            assertThat(loan.interestFrequency()).isEqualTo(Loan.InterestFrequency.MONTHLY);
+            assertThat(loan.createdAt()).isNotNull();
+        });
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.dto.PaymentHistoryResponse;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PaymentHistoryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PaymentHistoryRepository paymentHistoryRepository;
+
+    private Statistics statistics;
+    private User owner;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        owner = entityManager.persist(User.builder()
+                .name("Owner").email("owner@example.com").password("password").build());
+        otherUser = entityManager.persist(User.builder()
+                .name("Other").email("other@example.com").password("password").build());
+    }
+
+    private void seedLoans(User user, int loans, int paymentsPerLoan) {
+        for (int i = 0; i < loans; i++) {
+            Loan loan = entityManager.persist(Loan.builder()
+                    .user(user)
+                    .borrowerName("Borrower " + i)
+                    .principalAmount(new BigDecimal("1000.00"))
+                    .interestRate(12.0)
+                    .lendDate(LocalDate.of(2024, 1, 1))
+                    .build());
+            for (int p = 0; p < paymentsPerLoan; p++) {
+                entityManager.persist(PaymentHistory.builder()
+                        .loan(loan)
+                        .amount(new BigDecimal("10.00"))
+                        .paymentType(PaymentHistory.PaymentType.INTEREST)
+                        .paymentDate(LocalDate.of(2024, 2, 1).plusDays(p))
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsToLoadHistory(User user) {
+        statistics.clear();
+        List<PaymentHistoryResponse> history = paymentHistoryRepository
+                .findByUserBefore(user, null, null, Pageable.unpaged())
+                .stream()
+                .map(PaymentHistoryResponse::fromEntity)
+                .collect(Collectors.toList());
+        assertThat(history).allMatch(h -> h.getBorrowerName() != null);
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Should load a user's history in one statement regardless of size")
+    void findByUserBefore_ConstantStatementCount() {
+        seedLoans(owner, 2, 3);
+        long small = statementsToLoadHistory(owner);
+
+        seedLoans(owner, 20, 5);
+        long large = statementsToLoadHistory(owner);
+
+        assertThat(small).isEqualTo(1);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    @DisplayName("Should only return the user's payments, newest first, paged by keyset")
+    void findByUserBefore_ScopedAndOrdered() {
+        seedLoans(owner, 1, 3);
+        seedLoans(otherUser, 1, 4);
+
+        List<PaymentHistory> firstPage = paymentHistoryRepository.findByUserBefore(owner, null, null, PageRequest.of(0, 2));
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getPaymentDate()).isAfter(firstPage.get(1).getPaymentDate());
+
+        PaymentHistory last = firstPage.get(1);
+        List<PaymentHistory> secondPage = paymentHistoryRepository
+                .findByUserBefore(owner, last.getPaymentDate(), last.getId(), PageRequest.of(0, 2));
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).getPaymentDate()).isBefore(last.getPaymentDate());
+    }
+}
@@ -0,0 +1,123 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * The second-level cache only sees committed data, so these tests commit their
+ * fixtures and remove them again afterwards.
+ */
+@DataJpaTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentHistoryRepository paymentHistoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private User owner;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        owner = entityManager.persist(User.builder()
+                .name("Cached Owner").email("cached-owner@example.com").password("password").build());
+        loan = entityManager.persist(Loan.builder()
+                .user(owner)
+                .borrowerName("Cached Borrower")
+                .principalAmount(new BigDecimal("25000.00"))
+                .interestRate(12.0)
+                .lendDate(LocalDate.of(2024, 3, 1))
+                .build());
+        persistPayment("250.00", LocalDate.of(2024, 4, 1));
+        commitAndRestart();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!TestTransaction.isActive()) {
+            TestTransaction.start();
+        }
+        paymentHistoryRepository.deleteByLoanId(loan.getId());
+        loanRepository.deleteById(loan.getId());
+        userRepository.deleteById(owner.getId());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    private void persistPayment(String amount, LocalDate date) {
+        entityManager.persist(PaymentHistory.builder()
+                .loan(entityManager.getEntityManager().getReference(Loan.class, loan.getId()))
+                .amount(new BigDecimal(amount))
+                .paymentType(PaymentHistory.PaymentType.INTEREST)
+                .paymentDate(date)
+                .build());
+    }
+
+    private static void commitAndRestart() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+    }
+
+    @Test
+    @DisplayName("Should serve loans by id from the second-level cache")
+    void findById_HitsEntityCache() {
+        // IDENTITY inserts are not written to the cache, so the first read loads it
+        loanRepository.findById(loan.getId()).orElseThrow();
+        commitAndRestart();
+        statistics.clear();
+
+        Loan found = loanRepository.findById(loan.getId()).orElseThrow();
+
+        assertThat(found.getBorrowerName()).isEqualTo("Cached Borrower");
+        assertThat(found.getUser().getId()).isEqualTo(owner.getId());
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should cache a loan's payment history until a payment is recorded")
+    void findAllByLoanId_UsesQueryCache() {
+        assertThat(paymentHistoryRepository.findAllByLoanId(loan.getId())).hasSize(1);
+        commitAndRestart();
+        long statementsAfterFirstRead = statistics.getPrepareStatementCount();
+
+        assertThat(paymentHistoryRepository.findAllByLoanId(loan.getId())).hasSize(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirstRead);
+
+        persistPayment("250.00", LocalDate.of(2024, 5, 1));
+        commitAndRestart();
+
+        assertThat(paymentHistoryRepository.findAllByLoanId(loan.getId())).hasSize(2);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+}
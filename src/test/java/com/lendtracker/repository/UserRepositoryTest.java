@@ -0,0 +1,89 @@
+package com.lendtracker.repository;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.projection.UserWithLoanTotals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void seedUser(String name, int loans) {
+        User user = entityManager.persist(User.builder()
+                .name(name).email(name.toLowerCase() + "@example.com").password("password").build());
+        for (int i = 0; i < loans; i++) {
+            entityManager.persist(Loan.builder()
+                    .user(user)
+                    .borrowerName("Borrower " + i)
+                    .principalAmount(new BigDecimal("1000.00"))
+                    .interestRate(12.0)
+                    .lendDate(LocalDate.of(2024, 1, 1))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should list every user with loan totals in one statement")
+    void findAllWithLoanTotals_SingleStatement() {
+        seedUser("Alice", 3);
+        seedUser("Bob", 0);
+        seedUser("Carol", 1);
+
+        statistics.clear();
+        List<UserWithLoanTotals> users = userRepository.findAllWithLoanTotals(Pageable.unpaged()).getContent();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(users).hasSize(3);
+        UserWithLoanTotals bob = users.stream().filter(u -> u.getName().equals("Bob")).findFirst().orElseThrow();
+        assertThat(bob.getLoanCount()).isZero();
+        assertThat(bob.getTotalLent()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should page and sort users by their aggregated loan totals")
+    void findAllWithLoanTotals_PagedAndSortedByAggregate() {
+        seedUser("Alice", 3);
+        seedUser("Bob", 0);
+        seedUser("Carol", 1);
+
+        Page<UserWithLoanTotals> page = userRepository.findAllWithLoanTotals(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "totalLent")));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(UserWithLoanTotals::getName).containsExactly("Alice", "Carol");
+        assertThat(page.getContent().get(0).getTotalLent()).isEqualByComparingTo("3000.00");
+    }
+}
@@ -0,0 +1,79 @@
+package com.lendtracker.security;
+
+import com.lendtracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AuthRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AuthRateLimiter(true, 5, 5, 2, 2, 100, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should allow an email's burst and then reject it with Retry-After")
+    void check_LimitsPerEmail() {
+        limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.1", "lender@example.com");
+        limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.2", "Lender@Example.com ");
+
+        assertThatThrownBy(() -> limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.3", "lender@example.com"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").satisfies(seconds -> assertThat((Long) seconds).isBetween(1L, 30L));
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("scope", "login").tag("key", "email")
+                .counter().count()).isEqualTo(1.0);
+
+        // Another address is unaffected
+        limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.3", "other@example.com");
+    }
+
+    @Test
+    @DisplayName("Should limit a single IP across many emails")
+    void check_LimitsPerIp() {
+        for (int i = 0; i < 5; i++) {
+            limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.9", "user" + i + "@example.com");
+        }
+
+        assertThatThrownBy(() -> limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.9", "user9@example.com"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("key", "ip").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should keep login and OTP allowances separate")
+    void check_ScopesAreIndependent() {
+        limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.1", "lender@example.com");
+        limiter.check(AuthRateLimiter.Scope.LOGIN, "10.0.0.1", "lender@example.com");
+
+        assertThatCode(() -> limiter.check(AuthRateLimiter.Scope.OTP, "10.0.0.1", "lender@example.com"))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should refill tokens over time")
+    void tokenBucket_Refills() {
+        AuthRateLimiter.TokenBucket bucket = new AuthRateLimiter.TokenBucket(1, 60, 0L);
+
+        assertThat(bucket.tryAcquire(0L)).isZero();
+        assertThat(bucket.tryAcquire(0L)).isCloseTo(1_000_000_000L, within(10L));
+        assertThat(bucket.tryAcquire(2_000_000_000L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let everything through when disabled")
+    void check_Disabled() {
+        limiter = new AuthRateLimiter(false, 1, 1, 1, 1, 100, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.check(AuthRateLimiter.Scope.OTP, "10.0.0.1", "lender@example.com");
+        }
+    }
+}
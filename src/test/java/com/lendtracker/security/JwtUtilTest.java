@@ -0,0 +1,50 @@
+package com.lendtracker.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-that-is-at-least-256-bits-long-for-hs256");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtlSeconds", 300L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 100);
+        jwtUtil.init();
+    }
+
+    @Test
+    @DisplayName("Should return verified claims for a generated token")
+    void parseVerifiedClaims_Valid() {
+        String token = jwtUtil.generateToken(42L, "user@example.com", "User");
+
+        Optional<Claims> claims = jwtUtil.parseVerifiedClaims(token);
+
+        assertThat(claims).isPresent();
+        assertThat(jwtUtil.getUserId(claims.get())).isEqualTo(42L);
+        assertThat(claims.get().get("email", String.class)).isEqualTo("user@example.com");
+        assertThat(jwtUtil.parseVerifiedClaims(token)).containsSame(claims.get());
+    }
+
+    @Test
+    @DisplayName("Should reject tampered and malformed tokens")
+    void parseVerifiedClaims_Invalid() {
+        String token = jwtUtil.generateToken(42L, "user@example.com", "User");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtUtil.parseVerifiedClaims(tampered)).isEmpty();
+        assertThat(jwtUtil.parseVerifiedClaims("not-a-token")).isEmpty();
+        assertThat(jwtUtil.validateToken(null)).isFalse();
+    }
+}
@@ -0,0 +1,116 @@
+package com.lendtracker.security;
+
+import com.lendtracker.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CountDownLatch release;
+    private CountDownLatch started;
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        release = new CountDownLatch(1);
+        started = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hasher.shutdown();
+    }
+
+    // Encoder whose hashing blocks until the test releases it
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should hash and match on the pool and record the latency")
+    void encodeAndMatch_UseBcrypt() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 4, 5000, meterRegistry);
+
+        String hash = hasher.encode("secret123");
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(hasher.matches("secret123", hash)).isTrue();
+        assertThat(hasher.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("auth.password.hash").tag("op", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.password.hash").tag("op", "match").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject at once when the worker and queue are full")
+    void encode_RejectsWhenQueueFull() throws Exception {
+        hasher = new PasswordHasher(blockingEncoder(), 1, 1, 10_000, meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("first"), callers);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"), callers);
+        await(() -> meterRegistry.get("auth.password.queue").gauge().value() == 1.0);
+
+        assertThatThrownBy(() -> hasher.encode("third"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(1L);
+        assertThat(meterRegistry.get("auth.password.rejected").tag("reason", "queue-full").counter().count())
+                .isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:second");
+        callers.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should give up on a hash that waits longer than the timeout")
+    void matches_TimesOut() {
+        hasher = new PasswordHasher(blockingEncoder(), 1, 1, 50, meterRegistry);
+
+        assertThatThrownBy(() -> hasher.matches("secret", "hash:secret"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("auth.password.rejected").tag("reason", "timeout").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.lendtracker.security;
+
+import com.lendtracker.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserPrincipalCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserPrincipalCache cache;
+    private AtomicInteger loads;
+    private Function<Long, User> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserPrincipalCache(60, 2, meterRegistry);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return User.builder().id(id).name("User " + id).email(id + "@example.com").password("password").build();
+        };
+    }
+
+    @Test
+    @DisplayName("Should load once and serve repeats from the cache")
+    void get_CachesUser() {
+        cache.get(1L, loader);
+        User second = cache.get(1L, loader);
+
+        assertThat(second.getId()).isEqualTo(1L);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.user.cache").tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("auth.user.cache").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reload after invalidation")
+    void invalidate_ForcesReload() {
+        cache.get(1L, loader);
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should hand out copies so changes to one request's user do not leak into the cache")
+    void get_ReturnsIndependentCopies() {
+        User first = cache.get(1L, loader);
+        first.setName("Changed In Request");
+        first.setVerificationOtp("123456");
+
+        User second = cache.get(1L, loader);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("User 1");
+        assertThat(second.getVerificationOtp()).isNull();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop a user re-cached before the invalidating transaction commits")
+    void invalidate_AgainAfterCommit() {
+        cache.get(1L, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(1L);
+            // Another request reloads the old row before the writer commits
+            cache.get(1L, loader);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing users and should stay within max size")
+    void get_BoundedAndSkipsNull() {
+        assertThat(cache.get(99L, id -> null)).isNull();
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(3L, loader);
+
+        assertThat(meterRegistry.get("auth.user.cache.size").gauge().value()).isLessThanOrEqualTo(2.0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.ActivityEvent;
+import com.lendtracker.entity.ActivityEvent.ActivityType;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.ActivityEventRepository;
+import com.lendtracker.repository.BackfillProgressRepository;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class ActivityServiceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ActivityEventRepository activityEventRepository;
+
+    @Autowired
+    private BackfillProgressRepository backfillProgressRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private ActivityService activityService;
+
+    @BeforeEach
+    void setUp() {
+        activityService = new ActivityService(activityEventRepository, userRepository, loanRepository,
+                backfillProgressRepository, new JdbcTemplate(dataSource), transactionManager);
+    }
+
+    private User user(String name) {
+        return userRepository.saveAndFlush(User.builder()
+                .name(name).email(name.toLowerCase().replace(' ', '.') + "@example.com").password("password").build());
+    }
+
+    private Loan loan(User owner, String borrower) {
+        return loanRepository.saveAndFlush(Loan.builder()
+                .user(owner)
+                .borrowerName(borrower)
+                .principalAmount(new BigDecimal("5000.00"))
+                .interestRate(12.0)
+                .lendDate(LocalDate.now())
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should backfill users and loans once and record the progress")
+    void backfillIfEmpty_WritesEachEventOnce() {
+        User asha = user("Asha Rao");
+        User ravi = user("Ravi Iyer");
+        loan(asha, "Borrower A");
+        loan(ravi, "Borrower B");
+
+        activityService.backfillIfEmpty();
+        activityService.backfillIfEmpty();
+
+        List<ActivityEvent> events = activityEventRepository.findAll();
+        assertThat(events).filteredOn(event -> event.getType() == ActivityType.USER_REGISTERED)
+                .extracting(ActivityEvent::getUserId)
+                .contains(asha.getId(), ravi.getId())
+                .doesNotHaveDuplicates();
+        assertThat(events).filteredOn(event -> event.getType() == ActivityType.LOAN_CREATED)
+                .extracting(ActivityEvent::getUserName)
+                .contains("Asha Rao", "Ravi Iyer")
+                .doesNotHaveDuplicates();
+        assertThat(backfillProgressRepository.findById("activity-feed")).hasValueSatisfying(progress -> {
+            assertThat(progress.isCompleted()).isTrue();
+            assertThat(progress.getLastUserId()).isEqualTo(ravi.getId());
+        });
+    }
+
+    @Test
+    @DisplayName("Should skip the backfill when the feed already has events")
+    void backfillIfEmpty_SkipsLiveFeed() {
+        User asha = user("Asha Rao");
+        activityService.userRegistered(asha);
+
+        activityService.backfillIfEmpty();
+
+        assertThat(activityEventRepository.findAll()).hasSize(1);
+        assertThat(backfillProgressRepository.findById("activity-feed"))
+                .hasValueSatisfying(progress -> assertThat(progress.isCompleted()).isTrue());
+    }
+}
@@ -0,0 +1,29 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AmortizationCalculatorTest {
+
+    @Test
+    @DisplayName("Should fall back to BigInteger when the interest product overflows")
+    void applyRate_Overflow() {
+        long huge = Long.MAX_VALUE / 10;
+        assertThat(AmortizationCalculator.applyRate(huge, AmortizationCalculator.RATE_SCALE)).isEqualTo(huge);
+        assertThat(AmortizationCalculator.applyRate(12_345, 10_000_000L)).isEqualTo(123);
+    }
+
+    @Test
+    @DisplayName("Should throw instead of wrapping when compound amounts outgrow a long")
+    void compute_CompoundOverflow() {
+        assertThatThrownBy(() -> AmortizationCalculator.compute(7L, new BigDecimal("100000.00"), 20.0,
+                LocalDate.of(2024, 1, 1), Loan.InterestFrequency.YEARLY, AmortizationCalculator.Method.COMPOUND, 300))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
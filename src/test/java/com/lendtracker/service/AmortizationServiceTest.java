@@ -0,0 +1,134 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.AmortizationSchedule;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidScheduleException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AmortizationServiceTest {
+
+    @Mock
+    private LoanService loanService;
+
+    private AmortizationService amortizationService;
+    private User user;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        amortizationService = new AmortizationService(loanService, 60);
+        user = User.builder().id(1L).email("lender@example.com").build();
+        loan = Loan.builder()
+                .id(7L)
+                .principalAmount(new BigDecimal("100000.00"))
+                .interestRate(12.0)
+                .interestFrequency(Loan.InterestFrequency.MONTHLY)
+                .lendDate(LocalDate.of(2024, 1, 31))
+                .dueDate(LocalDate.of(2025, 1, 31))
+                .build();
+        when(loanService.getLoanById(7L, user)).thenReturn(loan);
+    }
+
+    @Test
+    @DisplayName("Should charge flat interest each period and repay principal at the end")
+    void getSchedule_Simple() {
+        AmortizationSchedule schedule = amortizationService.getSchedule(7L, user, null, null);
+
+        assertThat(schedule.getPeriods()).isEqualTo(12);
+        assertThat(schedule.getPeriodicRate()).isEqualByComparingTo("1");
+        assertThat(schedule.getTotalInterest()).isEqualByComparingTo("12000.00");
+        assertThat(schedule.getEntries().get(0).getPayment()).isEqualByComparingTo("1000.00");
+        assertThat(schedule.getEntries().get(11).getPayment()).isEqualByComparingTo("101000.00");
+        // Month-end lend dates clamp without drifting
+        assertThat(schedule.getEntries().get(0).getDueDate()).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(schedule.getEntries().get(2).getDueDate()).isEqualTo(LocalDate.of(2024, 4, 30));
+        assertThat(schedule.getEntries().get(11).getDueDate()).isEqualTo(LocalDate.of(2025, 1, 31));
+    }
+
+    @Test
+    @DisplayName("Should capitalize interest for compound schedules")
+    void getSchedule_Compound() {
+        AmortizationSchedule schedule = amortizationService.getSchedule(7L, user, "compound", null);
+
+        // 100000 * 1.01^12 = 112682.50, plus a paisa from rounding each period
+        assertThat(schedule.getTotalPayment()).isEqualByComparingTo("112682.51");
+        assertThat(schedule.getTotalInterest()).isEqualByComparingTo("12682.51");
+        assertThat(schedule.getEntries().get(11).getClosingBalance()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("Should amortize reducing-balance loans with equal installments")
+    void getSchedule_ReducingBalance() {
+        AmortizationSchedule schedule = amortizationService.getSchedule(7L, user, "reducing-balance", null);
+
+        assertThat(schedule.getEntries().get(0).getPayment()).isEqualByComparingTo("8884.88");
+        assertThat(schedule.getEntries().get(0).getInterest()).isEqualByComparingTo("1000.00");
+        BigDecimal repaid = schedule.getEntries().stream()
+                .map(AmortizationSchedule.Entry::getPrincipal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(repaid).isEqualByComparingTo("100000.00");
+        assertThat(schedule.getEntries().get(11).getClosingBalance()).isEqualByComparingTo("0");
+        assertThat(schedule.getTotalInterest()).isBetween(new BigDecimal("6618.00"), new BigDecimal("6619.00"));
+    }
+
+    @Test
+    @DisplayName("Should reuse cached schedules until the loan changes")
+    void getSchedule_Cached() {
+        AmortizationSchedule first = amortizationService.getSchedule(7L, user, "simple", 24);
+        AmortizationSchedule second = amortizationService.getSchedule(7L, user, "SIMPLE", 24);
+        assertThat(second).isSameAs(first);
+
+        loan.setInterestRate(18.0);
+        AmortizationSchedule afterEdit = amortizationService.getSchedule(7L, user, "simple", 24);
+        assertThat(afterEdit).isNotSameAs(first);
+        assertThat(afterEdit.getTotalInterest()).isEqualByComparingTo("36000.00");
+    }
+
+    @Test
+    @DisplayName("Should reject unknown methods and out-of-range periods")
+    void getSchedule_InvalidParameters() {
+        assertThatThrownBy(() -> amortizationService.getSchedule(7L, user, "balloon", null))
+                .isInstanceOf(InvalidScheduleException.class);
+        assertThatThrownBy(() -> amortizationService.getSchedule(7L, user, null, 0))
+                .isInstanceOf(InvalidScheduleException.class);
+        assertThatThrownBy(() -> amortizationService.getSchedule(7L, user, null, 10_001))
+                .isInstanceOf(InvalidScheduleException.class);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used schedules past the period budget")
+    void getSchedule_CacheBoundedByPeriods() {
+        AmortizationSchedule first = amortizationService.getSchedule(7L, user, "simple", 24);
+        amortizationService.getSchedule(7L, user, "compound", 24);
+        assertThat(amortizationService.cacheSize()).isEqualTo(2);
+
+        amortizationService.getSchedule(7L, user, "reducing-balance", 24);
+
+        assertThat(amortizationService.cacheSize()).isEqualTo(2);
+        assertThat(amortizationService.getSchedule(7L, user, "simple", 24)).isNotSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Should reject a compound schedule whose amounts overflow")
+    void getSchedule_CompoundOverflow() {
+        loan.setInterestRate(20.0);
+        loan.setInterestFrequency(Loan.InterestFrequency.YEARLY);
+
+        assertThatThrownBy(() -> amortizationService.getSchedule(7L, user, "compound", 300))
+                .isInstanceOf(InvalidScheduleException.class)
+                .hasMessageContaining("request fewer periods");
+    }
+}
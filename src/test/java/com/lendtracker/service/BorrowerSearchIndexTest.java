@@ -0,0 +1,115 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.projection.LoanSearchFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowerSearchIndexTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private BorrowerSearchIndex searchIndex;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new BorrowerSearchIndex(loanRepository, 10);
+        testUser = User.builder().id(1L).name("Test User").email("test@example.com").password("password").build();
+
+        List<LoanSearchFields> rows = List.of(
+                fields(1L, "Rajesh Sharma", "rajesh.sharma@gmail.com", "+91 9876543210"),
+                fields(2L, "Priya Reddy", null, "+91 8765432109"),
+                fields(3L, "Amit Patel", "amit@example.com", null));
+        lenient().when(loanRepository.findSearchFieldsByUser(testUser)).thenReturn(rows);
+    }
+
+    private LoanSearchFields fields(Long id, String name, String email, String phone) {
+        LoanSearchFields fields = mock(LoanSearchFields.class, withSettings().strictness(Strictness.LENIENT));
+        when(fields.getId()).thenReturn(id);
+        when(fields.getBorrowerName()).thenReturn(name);
+        when(fields.getBorrowerEmail()).thenReturn(email);
+        when(fields.getBorrowerPhone()).thenReturn(phone);
+        return fields;
+    }
+
+    @Test
+    @DisplayName("Should match substrings of name, email and phone case-insensitively")
+    void search_Substring() {
+        assertThat(searchIndex.search(testUser, "SHARMA")).containsExactly(1L);
+        assertThat(searchIndex.search(testUser, "example.com")).containsExactly(3L);
+        assertThat(searchIndex.search(testUser, "432109")).containsExactly(2L);
+        assertThat(searchIndex.search(testUser, "+91")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(searchIndex.search(testUser, "nobody")).isEmpty();
+        verify(loanRepository, times(1)).findSearchFieldsByUser(testUser);
+    }
+
+    @Test
+    @DisplayName("Should handle terms shorter than a trigram")
+    void search_ShortTerm() {
+        assertThat(searchIndex.search(testUser, "pa")).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should not match across field boundaries")
+    void search_NoCrossFieldMatch() {
+        assertThat(searchIndex.search(testUser, "patelamit")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reflect loan updates and deletes")
+    void search_AfterChanges() {
+        searchIndex.search(testUser, "priya");
+
+        Loan renamed = Loan.builder().id(2L).borrowerName("Priya Kapoor").build();
+        searchIndex.onLoanSaved(testUser, renamed);
+        searchIndex.onLoanDeleted(testUser, 1L);
+
+        assertThat(searchIndex.search(testUser, "reddy")).isEmpty();
+        assertThat(searchIndex.search(testUser, "kapoor")).containsExactly(2L);
+        assertThat(searchIndex.search(testUser, "rajesh")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop the least recently searched users once the loan budget is exceeded")
+    void search_EvictsOverBudget() {
+        searchIndex = new BorrowerSearchIndex(loanRepository, 4);
+        User other = User.builder().id(2L).name("Other User").email("other@example.com").password("password").build();
+        List<LoanSearchFields> otherRows = List.of(
+                fields(10L, "Sunita Rao", null, null),
+                fields(11L, "Vikram Rao", null, null));
+        when(loanRepository.findSearchFieldsByUser(other)).thenReturn(otherRows);
+
+        assertThat(searchIndex.search(testUser, "sharma")).containsExactly(1L);
+        assertThat(searchIndex.search(other, "rao")).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(searchIndex.indexedLoans()).isEqualTo(2);
+
+        assertThat(searchIndex.search(testUser, "sharma")).containsExactly(1L);
+        assertThat(searchIndex.indexedLoans()).isEqualTo(3);
+        verify(loanRepository, times(2)).findSearchFieldsByUser(testUser);
+    }
+
+    @Test
+    @DisplayName("Should not index a user with more loans than the whole budget")
+    void search_TooManyLoans() {
+        when(loanRepository.countByUser(testUser)).thenReturn(11L);
+
+        assertThat(searchIndex.search(testUser, "sharma")).isNull();
+        assertThat(searchIndex.indexedLoans()).isZero();
+        verify(loanRepository, never()).findSearchFieldsByUser(testUser);
+    }
+}
@@ -0,0 +1,135 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.CashFlowForecast;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidForecastException;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.projection.LoanForecastFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CashFlowForecastServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 15);
+
+    private LoanRepository loanRepository;
+    private CashFlowForecastService forecastService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository = mock(LoanRepository.class);
+        forecastService = new CashFlowForecastService(loanRepository, 2000, 10);
+        user = User.builder().id(1L).email("lender@example.com").build();
+    }
+
+    private static LoanForecastFields loan(String principal, String repaid, double rate,
+                                           Loan.InterestFrequency frequency, LocalDate lend, LocalDate due) {
+        return new LoanForecastFields() {
+            public Long getId() { return 1L; }
+            public BigDecimal getPrincipalAmount() { return new BigDecimal(principal); }
+            public BigDecimal getTotalPrincipalReceived() { return new BigDecimal(repaid); }
+            public Double getInterestRate() { return rate; }
+            public Loan.InterestFrequency getInterestFrequency() { return frequency; }
+            public LocalDate getLendDate() { return lend; }
+            public LocalDate getDueDate() { return due; }
+        };
+    }
+
+    @Test
+    @DisplayName("Should bucket monthly interest and principal on the outstanding balance")
+    void project_MonthlyBuckets() {
+        // 100000 lent at 12% with 40000 already repaid: 600 interest per month until June 10
+        LoanForecastFields monthly = loan("100000.00", "40000.00", 12.0, Loan.InterestFrequency.MONTHLY,
+                LocalDate.of(2023, 12, 10), LocalDate.of(2024, 6, 10));
+
+        CashFlowForecast forecast = CashFlowForecastService.project(List.of(monthly), FROM, 12,
+                CashFlowForecastService.Granularity.MONTH, 2000);
+
+        assertThat(forecast.getBuckets()).hasSize(12);
+        assertThat(forecast.getTo()).isEqualTo(LocalDate.of(2025, 1, 15));
+        // Feb 10 falls in the bucket starting Jan 15; interest stops after the due date
+        assertThat(forecast.getBuckets().get(0).getInterest()).isEqualByComparingTo("600.00");
+        assertThat(forecast.getBuckets().get(4).getInterest()).isEqualByComparingTo("600.00");
+        assertThat(forecast.getBuckets().get(4).getPrincipal()).isEqualByComparingTo("60000.00");
+        assertThat(forecast.getBuckets().get(5).getTotal()).isEqualByComparingTo("0");
+        assertThat(forecast.getTotalInterest()).isEqualByComparingTo("3000.00");
+        assertThat(forecast.getTotalPrincipal()).isEqualByComparingTo("60000.00");
+        assertThat(forecast.getOverduePrincipal()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("Should keep accruing interest on overdue loans and report their principal")
+    void project_OverdueLoan() {
+        LoanForecastFields overdue = loan("50000.00", "0", 24.0, Loan.InterestFrequency.MONTHLY,
+                LocalDate.of(2023, 1, 20), LocalDate.of(2023, 12, 20));
+
+        CashFlowForecast forecast = CashFlowForecastService.project(List.of(overdue), FROM, 3,
+                CashFlowForecastService.Granularity.WEEK, 2000);
+
+        assertThat(forecast.getBuckets()).hasSize(13);
+        assertThat(forecast.getBuckets().get(0).getInterest()).isEqualByComparingTo("1000.00");
+        assertThat(forecast.getTotalInterest()).isEqualByComparingTo("3000.00");
+        assertThat(forecast.getOverduePrincipal()).isEqualByComparingTo("50000.00");
+        assertThat(forecast.getTotalPrincipal()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("Should produce the same totals on the parallel path")
+    void project_ParallelMatchesSequential() {
+        List<LoanForecastFields> loans = new ArrayList<>();
+        Loan.InterestFrequency[] frequencies = Loan.InterestFrequency.values();
+        for (int i = 0; i < 5_000; i++) {
+            loans.add(loan(String.valueOf(1_000 + i), "0", 6 + i % 20, frequencies[i % frequencies.length],
+                    FROM.minusDays(i % 400), i % 3 == 0 ? null : FROM.plusDays(i % 500 - 50)));
+        }
+
+        CashFlowForecast sequential = CashFlowForecastService.project(loans, FROM, 24,
+                CashFlowForecastService.Granularity.MONTH, Integer.MAX_VALUE);
+        CashFlowForecast parallel = CashFlowForecastService.project(loans, FROM, 24,
+                CashFlowForecastService.Granularity.MONTH, 1);
+
+        assertThat(parallel.getTotalInterest()).isEqualByComparingTo(sequential.getTotalInterest());
+        assertThat(parallel.getTotalPrincipal()).isEqualByComparingTo(sequential.getTotalPrincipal());
+        assertThat(parallel.getOverduePrincipal()).isEqualByComparingTo(sequential.getOverduePrincipal());
+        for (int i = 0; i < sequential.getBuckets().size(); i++) {
+            assertThat(parallel.getBuckets().get(i).getTotal())
+                    .isEqualByComparingTo(sequential.getBuckets().get(i).getTotal());
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve cached forecasts until the user's loans change")
+    void getForecast_CachedUntilInvalidated() {
+        when(loanRepository.findForecastFieldsByUser(user, Loan.LoanStatus.ACTIVE)).thenReturn(List.of());
+
+        CashFlowForecast first = forecastService.getForecast(user, 6, "month");
+        assertThat(forecastService.getForecast(user, 6, "MONTH")).isSameAs(first);
+        verify(loanRepository, times(1)).findForecastFieldsByUser(user, Loan.LoanStatus.ACTIVE);
+
+        forecastService.invalidate(user);
+        assertThat(forecastService.getForecast(user, 6, "month")).isNotSameAs(first);
+        verify(loanRepository, times(2)).findForecastFieldsByUser(user, Loan.LoanStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("Should reject out-of-range horizons and unknown granularities")
+    void getForecast_InvalidParameters() {
+        assertThatThrownBy(() -> forecastService.getForecast(user, 0, null))
+                .isInstanceOf(InvalidForecastException.class);
+        assertThatThrownBy(() -> forecastService.getForecast(user, 61, null))
+                .isInstanceOf(InvalidForecastException.class);
+        assertThatThrownBy(() -> forecastService.getForecast(user, 12, "quarter"))
+                .isInstanceOf(InvalidForecastException.class);
+    }
+}
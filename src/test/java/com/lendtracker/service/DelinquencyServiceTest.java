@@ -0,0 +1,130 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+class DelinquencyServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private EmailService emailService;
+    private DelinquencyService delinquencyService;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        emailService = mock(EmailService.class);
+        delinquencyService = new DelinquencyService(loanRepository, emailService, transactionManager);
+        // Chunks of one loan exercise the keyset cursor
+        ReflectionTestUtils.setField(delinquencyService, "chunkSize", 1);
+        ReflectionTestUtils.setField(delinquencyService, "delinquentAfterDays", 30);
+        owner = entityManager.persist(User.builder()
+                .name("Owner").email("owner@example.com").password("password").build());
+    }
+
+    private Loan persistLoan(String borrower, LocalDate lendDate, Loan.LoanStatus status) {
+        return entityManager.persist(Loan.builder()
+                .user(owner)
+                .borrowerName(borrower)
+                .principalAmount(new BigDecimal("10000.00"))
+                .interestRate(12.0)
+                .lendDate(lendDate)
+                .status(status)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should count whole periods of interest received and cap at the due date")
+    void nextDueDate_CountsPaidPeriods() {
+        Loan loan = Loan.builder()
+                .principalAmount(new BigDecimal("10000.00"))
+                .interestRate(12.0)
+                .lendDate(LocalDate.of(2024, 1, 31))
+                .totalInterestReceived(new BigDecimal("250.00"))
+                .build();
+
+        // 100.00 interest per month; 250.00 covers two periods
+        assertThat(DelinquencyService.nextDueDate(loan)).isEqualTo(LocalDate.of(2024, 4, 30));
+
+        loan.setDueDate(LocalDate.of(2024, 3, 15));
+        assertThat(DelinquencyService.nextDueDate(loan)).isEqualTo(LocalDate.of(2024, 3, 15));
+
+        loan.setInterestRate(0.0);
+        loan.setDueDate(null);
+        assertThat(DelinquencyService.nextDueDate(loan)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should clear delinquency once payments catch up")
+    void refreshNextDueDate_ResetsDelinquency() {
+        LocalDate today = LocalDate.now();
+        Loan loan = Loan.builder()
+                .principalAmount(new BigDecimal("10000.00"))
+                .interestRate(12.0)
+                .lendDate(today.minusMonths(1).minusDays(3))
+                .delinquency(Loan.DelinquencyStatus.OVERDUE)
+                .build();
+
+        DelinquencyService.refreshNextDueDate(loan, today);
+        assertThat(loan.getDelinquency()).isEqualTo(Loan.DelinquencyStatus.OVERDUE);
+
+        loan.setTotalInterestReceived(new BigDecimal("100.00"));
+        DelinquencyService.refreshNextDueDate(loan, today);
+        assertThat(loan.getNextDueDate()).isAfter(today);
+        assertThat(loan.getDelinquency()).isEqualTo(Loan.DelinquencyStatus.CURRENT);
+    }
+
+    @Test
+    @DisplayName("Should backfill, flag late loans once and queue one reminder per transition")
+    void scan_FlagsLateLoans() {
+        LocalDate today = LocalDate.now();
+        Loan delinquent = persistLoan("Very Late", today.minusMonths(3), Loan.LoanStatus.ACTIVE);
+        LocalDate overdueLend = today.minusDays(5).minusMonths(1);
+        Loan overdue = persistLoan("Bit Late", overdueLend, Loan.LoanStatus.ACTIVE);
+        Loan current = persistLoan("On Time", today.minusDays(10), Loan.LoanStatus.ACTIVE);
+        Loan closed = persistLoan("Closed", today.minusMonths(6), Loan.LoanStatus.CLOSED);
+        entityManager.flush();
+
+        delinquencyService.scan();
+
+        assertThat(delinquent.getDelinquency()).isEqualTo(Loan.DelinquencyStatus.DELINQUENT);
+        assertThat(overdue.getDelinquency()).isEqualTo(Loan.DelinquencyStatus.OVERDUE);
+        LocalDate overdueSince = overdueLend.plusMonths(1);
+        assertThat(overdue.getNextDueDate()).isEqualTo(overdueSince);
+        assertThat(current.getDelinquency()).isEqualTo(Loan.DelinquencyStatus.CURRENT);
+        assertThat(closed.getNextDueDate()).isNull();
+        verify(emailService).sendLoanOverdueEmail(eq("owner@example.com"), any(), eq("Very Late"),
+                any(), anyLong(), any(), eq(true));
+        verify(emailService).sendLoanOverdueEmail(eq("owner@example.com"), any(), eq("Bit Late"),
+                eq(overdueSince), eq(ChronoUnit.DAYS.between(overdueSince, today)), any(), eq(false));
+
+        entityManager.flush();
+        delinquencyService.scan();
+        verifyNoMoreInteractions(emailService);
+    }
+}
@@ -0,0 +1,142 @@
+package com.lendtracker.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.lendtracker.entity.EmailOutbox;
+import com.lendtracker.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailOutboxRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EmailOutboxRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = dispatcherFor(ServerSetupTest.SMTP.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    private EmailOutboxDispatcher dispatcherFor(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+
+        EmailOutboxDispatcher d = new EmailOutboxDispatcher(
+                repository, mailSender, mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(d, "fromEmail", "noreply@lendtracker.test");
+        ReflectionTestUtils.setField(d, "batchSize", 50);
+        ReflectionTestUtils.setField(d, "workers", 1);
+        ReflectionTestUtils.setField(d, "queueCapacity", 1);
+        ReflectionTestUtils.setField(d, "maxAttempts", 3);
+        ReflectionTestUtils.setField(d, "backoffSeconds", 30L);
+        ReflectionTestUtils.setField(d, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(d, "leaseSeconds", 300L);
+        d.init();
+        return d;
+    }
+
+    private static EmailOutbox email(long id, String to) {
+        return EmailOutbox.builder()
+                .id(id)
+                .toAddress(to)
+                .subject("Subject " + id)
+                .htmlBody("<p>Body " + id + "</p>")
+                .status(EmailOutbox.Status.SENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should deliver a whole batch to the SMTP server")
+    void sendBatch_DeliversAll() throws Exception {
+        List<EmailOutbox> batch = List.of(email(1L, "a@example.com"), email(2L, "b@example.com"));
+
+        Map<Long, Exception> failures = dispatcher.sendBatch(batch);
+
+        assertThat(failures).isEmpty();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received).extracting(MimeMessage::getSubject).containsExactlyInAnyOrder("Subject 1", "Subject 2");
+    }
+
+    @Test
+    @DisplayName("Should report every email as failed when the SMTP server is unreachable")
+    void sendBatch_ServerDown() {
+        EmailOutboxDispatcher offline = dispatcherFor(ServerSetupTest.SMTP.getPort() + 1);
+        try {
+            Map<Long, Exception> failures = offline.sendBatch(List.of(email(1L, "a@example.com"), email(2L, "b@example.com")));
+
+            assertThat(failures).containsOnlyKeys(1L, 2L);
+        } finally {
+            offline.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should mark delivered emails sent and schedule failed ones with backoff")
+    void recordOutcome_SentAndRetried() {
+        EmailOutbox delivered = email(1L, "a@example.com");
+        EmailOutbox failed = email(2L, "b@example.com");
+        when(repository.findAllById(anyList())).thenReturn(List.of(delivered, failed));
+
+        dispatcher.recordOutcome(List.of(delivered, failed), Map.of(2L, new RuntimeException("451 try later")));
+
+        assertThat(delivered.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(delivered.getSentAt()).isNotNull();
+        assertThat(failed.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).isEqualTo("451 try later");
+        assertThat(failed.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(25));
+        assertThat(meterRegistry.counter("email.failed", "outcome", "retry").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should give up after max attempts")
+    void recordOutcome_GivesUp() {
+        EmailOutbox failed = email(1L, "a@example.com");
+        failed.setAttempts(2);
+        when(repository.findAllById(anyList())).thenReturn(List.of(failed));
+
+        dispatcher.recordOutcome(List.of(failed), Map.of(1L, new RuntimeException("550 no such user")));
+
+        assertThat(failed.getStatus()).isEqualTo(EmailOutbox.Status.FAILED);
+        assertThat(meterRegistry.counter("email.failed", "outcome", "dead").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should double the backoff per attempt up to the cap")
+    void backoff_DoublesAndCaps() {
+        assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(dispatcher.backoff(3)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(dispatcher.backoff(20)).isEqualTo(Duration.ofSeconds(3600));
+    }
+}
@@ -0,0 +1,69 @@
+package com.lendtracker.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EmailTemplateTest {
+
+    private static final Map<String, String> PARTIALS = Map.of(
+            "header", "<header>{{appName}}</header>",
+            "footer", "<footer>© {{appName}}</footer>");
+
+    @Test
+    @DisplayName("Should inline partials and constants at compile time")
+    void compile_InlinesPartialsAndConstants() {
+        EmailTemplate template = EmailTemplate.compile("test",
+                "{{> header}}<p>Hi {{userName}}</p>{{> footer}}", PARTIALS::get, Map.of("appName", "LendTracker"));
+
+        assertThat(template.getVariables()).containsExactly("userName");
+        assertThat(template.render(Map.of("userName", "Asha")))
+                .isEqualTo("<header>LendTracker</header><p>Hi Asha</p><footer>© LendTracker</footer>");
+    }
+
+    @Test
+    @DisplayName("Should HTML-escape variable values")
+    void render_EscapesValues() {
+        EmailTemplate template = EmailTemplate.compile("test", "<a href=\"{{link}}\">{{name}}</a>", PARTIALS::get, Map.of());
+
+        assertThat(template.render(Map.of("link", "/reset?a=1&b=2", "name", "<Tom & \"Jerry\">")))
+                .isEqualTo("<a href=\"/reset?a=1&amp;b=2\">&lt;Tom &amp; &quot;Jerry&quot;&gt;</a>");
+    }
+
+    @Test
+    @DisplayName("Should reject unknown partials and missing values")
+    void compileAndRender_Errors() {
+        assertThatThrownBy(() -> EmailTemplate.compile("test", "{{> missing}}", PARTIALS::get, Map.of()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("missing");
+
+        EmailTemplate template = EmailTemplate.compile("test", "{{otp}}", PARTIALS::get, Map.of());
+        assertThatThrownBy(() -> template.render(Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("otp");
+    }
+
+    @Test
+    @DisplayName("Should compile every bundled email template")
+    void emailTemplates_LoadBundledTemplates() {
+        EmailTemplates templates = new EmailTemplates();
+        ReflectionTestUtils.setField(templates, "appName", "LendTracker");
+        ReflectionTestUtils.setField(templates, "baseUrl", "http://localhost:5173");
+        templates.load();
+
+        for (String name : new String[] {"verify-email", "new-loan", "loan-closed", "loans-imported", "password-reset", "password-changed"}) {
+            EmailTemplate template = templates.get(name);
+            Map<String, String> values = new HashMap<>();
+            template.getVariables().forEach(variable -> values.put(variable, "value"));
+
+            String html = template.render(values);
+
+            assertThat(html).startsWith("<!DOCTYPE html>").contains("© 2026 LendTracker").doesNotContain("{{");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.UserRepository;
+import com.lendtracker.security.UserPrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class LastLoginRecorderTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2026, 3, 2, 9, 0);
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 2, 12, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private LastLoginRecorder recorder;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new LastLoginRecorder(jdbcTemplate, transactionManager, entityManagerFactory,
+                new UserPrincipalCache(60, 100, meterRegistry), 100, meterRegistry);
+        user = userRepository.saveAndFlush(User.builder()
+                .name("Frequent Lender").email("frequent@example.com").password("password").build());
+    }
+
+    private LocalDateTime storedLastLogin() {
+        return jdbcTemplate.queryForObject("SELECT last_login_at FROM users WHERE id = ?",
+                LocalDateTime.class, user.getId());
+    }
+
+    @Test
+    @DisplayName("Should coalesce logins in memory and write the latest on flush")
+    void flush_WritesLatestLogin() {
+        recorder.record(user.getId(), NOON);
+        recorder.record(user.getId(), MORNING);
+
+        assertThat(storedLastLogin()).isNull();
+        assertThat(meterRegistry.get("auth.last-login.pending").gauge().value()).isEqualTo(1.0);
+
+        recorder.flush();
+
+        assertThat(storedLastLogin()).isEqualTo(NOON);
+        assertThat(meterRegistry.get("auth.last-login.pending").gauge().value()).isZero();
+        assertThat(meterRegistry.get("auth.last-login.written").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("auth.last-login.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should never move the last login time backwards")
+    void flush_KeepsNewerStoredTime() {
+        recorder.record(user.getId(), NOON);
+        recorder.flush();
+        recorder.record(user.getId(), MORNING);
+        recorder.flush();
+
+        assertThat(storedLastLogin()).isEqualTo(NOON);
+        assertThat(meterRegistry.get("auth.last-login.written").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not let a stale User entity overwrite the flushed time")
+    void save_DoesNotWriteLastLogin() {
+        User stale = userRepository.findById(user.getId()).orElseThrow();
+        recorder.record(user.getId(), NOON);
+        recorder.flush();
+
+        stale.setName("Renamed Lender");
+        stale.setLastLoginAt(MORNING);
+        userRepository.saveAndFlush(stale);
+
+        assertThat(storedLastLogin()).isEqualTo(NOON);
+    }
+}
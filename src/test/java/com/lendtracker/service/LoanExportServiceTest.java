@@ -0,0 +1,92 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class LoanExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private LoanExportService exportService;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new LoanExportService(dataSource);
+        owner = entityManager.persist(User.builder()
+                .name("Owner").email("owner@example.com").password("password").build());
+        User other = entityManager.persist(User.builder()
+                .name("Other").email("other@example.com").password("password").build());
+
+        Loan loan = entityManager.persist(Loan.builder()
+                .user(owner)
+                .borrowerName("Sharma, Rajesh")
+                .borrowerPhone("+91 9876543210")
+                .principalAmount(new BigDecimal("500000.00"))
+                .interestRate(12.0)
+                .lendDate(LocalDate.of(2024, 6, 3))
+                .notes("=HYPERLINK(\"x\")")
+                .build());
+        entityManager.persist(PaymentHistory.builder()
+                .loan(loan)
+                .amount(new BigDecimal("5000.00"))
+                .paymentType(PaymentHistory.PaymentType.INTEREST)
+                .paymentDate(LocalDate.of(2024, 7, 3))
+                .build());
+        entityManager.persist(Loan.builder()
+                .user(other)
+                .borrowerName("Someone Else")
+                .principalAmount(new BigDecimal("100.00"))
+                .interestRate(10.0)
+                .lendDate(LocalDate.of(2024, 1, 1))
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should export only the user's loans as quoted CSV")
+    void exportLoansCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportLoansCsv(owner, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,borrower_name,borrower_phone");
+        assertThat(lines[1])
+                .contains(",\"Sharma, Rajesh\",+91 9876543210,,500000.00,12.0,2024-06-03,,MONTHLY,")
+                .contains(",\"'=HYPERLINK(\"\"x\"\")\",");
+    }
+
+    @Test
+    @DisplayName("Should export the user's payments with the borrower name")
+    void exportPaymentsCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportPaymentsCsv(owner, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).endsWith(",\"Sharma, Rajesh\",INTEREST,5000.00,2024-07-03,");
+    }
+}
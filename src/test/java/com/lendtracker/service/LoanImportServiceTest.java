@@ -0,0 +1,160 @@
+package com.lendtracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lendtracker.dto.BulkImportResult;
+import com.lendtracker.entity.User;
+import com.lendtracker.exception.InvalidImportException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoanImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PortfolioSummaryService portfolioSummaryService;
+    private EmailService emailService;
+    private LoanImportService importService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        portfolioSummaryService = mock(PortfolioSummaryService.class);
+        emailService = mock(EmailService.class);
+        importService = new LoanImportService(
+                jdbcTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                portfolioSummaryService,
+                mock(BorrowerSearchIndex.class),
+                mock(CashFlowForecastService.class),
+                mock(ActivityService.class),
+                emailService,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+        ReflectionTestUtils.setField(importService, "maxRows", 100);
+        user = User.builder().id(1L).name("Lender").email("lender@example.com").password("password").build();
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should import valid CSV rows in batches and report invalid ones")
+    void importCsv_BatchesValidRowsAndReportsErrors() throws Exception {
+        String csv = """
+                borrower_name,principalAmount,interest_rate,lend_date,interestFrequency,notes
+                Asha,1000.00,12,2024-01-01,monthly,"Shop, Pune"
+                ,500,10,2024-01-02,MONTHLY,
+                Ravi,abc,10,2024-01-03,MONTHLY,
+                Meena,2500.50,8.5,2024-01-04,YEARLY,
+                Kiran,300,9,2024-01-05,,
+                """;
+
+        BulkImportResult result = importService.importLoans(user, body(csv), LoanImportService.Format.CSV);
+
+        assertThat(result.getTotalRows()).isEqualTo(5);
+        assertThat(result.getImportedCount()).isEqualTo(3);
+        assertThat(result.getFailedCount()).isEqualTo(2);
+        assertThat(result.getTotalPrincipal()).isEqualByComparingTo("3800.50");
+        assertThat(result.getErrors()).extracting(BulkImportResult.RowError::getRow).containsExactly(2, 3);
+        assertThat(result.getErrors().get(0).getMessage()).contains("Borrower name is required");
+        assertThat(result.getErrors().get(1).getMessage()).contains("principalamount");
+
+        // batch size argument == rows in the batch
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(2), any());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(1), any());
+        verify(portfolioSummaryService, times(2)).onLoansCreated(eq(user), anyCollection());
+        verify(emailService, times(1)).sendLoansImportedEmail(
+                "lender@example.com", "Lender", 3, 2, new BigDecimal("3800.50"));
+        assertThat(result.isCompleted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep committed batches and stop at a batch that cannot be saved")
+    void importCsv_StopsAtFailedBatch() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][]{{1, 1}})
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+        String csv = """
+                borrowerName,principalAmount,interestRate,lendDate
+                Asha,1000,12,2024-01-01
+                Ravi,2000,12,2024-01-01
+                Meena,3000,12,2024-01-01
+                Kiran,4000,12,2024-01-01
+                Arun,5000,12,2024-01-01
+                """;
+
+        BulkImportResult result = importService.importLoans(user, body(csv), LoanImportService.Format.CSV);
+
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getImportedCount()).isEqualTo(2);
+        assertThat(result.getTotalPrincipal()).isEqualByComparingTo("3000");
+        assertThat(result.getFailedCount()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkImportResult.RowError::getRow).containsExactly(3);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(portfolioSummaryService, times(1)).onLoansCreated(eq(user), anyCollection());
+        verify(emailService).sendLoansImportedEmail("lender@example.com", "Lender", 2, 2, new BigDecimal("3000"));
+    }
+
+    @Test
+    @DisplayName("Should import JSON lines and reject malformed lines")
+    void importJsonLines() throws Exception {
+        String lines = """
+                {"borrowerName":"Asha","principalAmount":1000,"interestRate":12,"lendDate":"2024-01-01"}
+                {"borrowerName":"Ravi",
+                {"borrowerName":"Meena","principalAmount":2000,"interestRate":101,"lendDate":"2024-01-01"}
+                """;
+
+        BulkImportResult result = importService.importLoans(user, body(lines), LoanImportService.Format.JSON_LINES);
+
+        assertThat(result.getImportedCount()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BulkImportResult.RowError::getRow).containsExactly(2, 3);
+        assertThat(result.getErrors().get(1).getMessage()).contains("Interest rate must be <= 100");
+    }
+
+    @Test
+    @DisplayName("Should reject a CSV without the required columns")
+    void importCsv_MissingColumn() {
+        assertThatThrownBy(() -> importService.importLoans(user, body("borrower_name,principal_amount\n"),
+                LoanImportService.Format.CSV))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessageContaining("missing required column");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should ignore a UTF-8 byte order mark before the header")
+    void importCsv_ByteOrderMark() throws Exception {
+        String csv = "\uFEFFborrower_name,principal_amount,interest_rate,lend_date\n"
+                + "Asha,1000,12,2024-01-01\n";
+
+        BulkImportResult result = importService.importLoans(user, body(csv), LoanImportService.Format.CSV);
+
+        assertThat(result.getImportedCount()).isEqualTo(1);
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should split quoted CSV fields")
+    void splitCsvLine_Quotes() {
+        assertThat(LoanImportService.splitCsvLine("a,\"b, c\",\"say \"\"hi\"\"\",")).isEqualTo(List.of("a", "b, c", "say \"hi\"", ""));
+    }
+}
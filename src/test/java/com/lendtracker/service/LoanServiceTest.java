@@ -1,26 +1,41 @@
 package com.lendtracker.service;
 
+import com.lendtracker.dto.LoanFilter;
+import com.lendtracker.dto.LoanResponse;
+import com.lendtracker.dto.PaymentRequest;
 import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.PortfolioSummary;
 import com.lendtracker.entity.User;
 import com.lendtracker.exception.LoanNotFoundException;
 import com.lendtracker.repository.LoanRepository;
 import com.lendtracker.repository.PaymentHistoryRepository;
+import com.lendtracker.repository.projection.BorrowerTotal;
+import com.lendtracker.repository.projection.LoanFilterCount;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +50,21 @@ class LoanServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private PortfolioSummaryService portfolioSummaryService;
+
+    @Mock
+    private BorrowerSearchIndex borrowerSearchIndex;
+
+    @Mock
+    private CashFlowForecastService cashFlowForecastService;
+
+    @Mock
+    private ActivityService activityService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private LoanService loanService;
 
@@ -78,19 +108,36 @@ class LoanServiceTest {
     @Test
     @DisplayName("Should return all loans for user")
     void getAllLoans_Success() {
-        List<Loan> loans = Arrays.asList(testLoan, testLoan);
-        when(loanRepository.findByUserOrderByCreatedAtDesc(testUser)).thenReturn(loans);
+        List<LoanResponse> loans = Arrays.asList(LoanResponse.fromEntity(testLoan), LoanResponse.fromEntity(testLoan));
+        when(loanRepository.searchAndFilter(eq(testUser), isNull(), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(loans);
 
-        List<Loan> result = loanService.getAllLoans(testUser);
+        List<LoanResponse> result = loanService.getAllLoans(testUser);
 
         assertThat(result).hasSize(2);
-        verify(loanRepository, times(1)).findByUserOrderByCreatedAtDesc(testUser);
+        assertThat(result.get(0).borrowerName()).isEqualTo("Test Borrower");
+    }
+
+    @Test
+    @DisplayName("Should search by indexed ids, or by LIKE when the portfolio is not indexed")
+    void searchLoans_IndexedOrFallback() {
+        LoanFilter filter = loanService.buildFilter("sharma", null, null, null, null, null, null, null, null);
+        when(borrowerSearchIndex.search(testUser, "sharma")).thenReturn(Set.of(1L)).thenReturn(null);
+
+        loanService.searchLoans(testUser, filter, null, 10);
+        loanService.searchLoans(testUser, filter, null, 10);
+
+        verify(loanRepository).searchAndFilterByIds(eq(testUser), isNull(), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), isNull(), isNull(), eq(Set.of(1L)), isNull(), isNull(), any(Pageable.class));
+        verify(loanRepository).searchAndFilter(eq(testUser), eq("sharma"), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any(Pageable.class));
     }
 
     @Test
     @DisplayName("Should return loan by ID for user")
     void getLoanById_Success() {
-        when(loanRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(testLoan));
 
         Loan result = loanService.getLoanById(1L, testUser);
 
@@ -101,13 +148,23 @@ class LoanServiceTest {
     @Test
     @DisplayName("Should throw exception when loan not found for user")
     void getLoanById_NotFound() {
-        when(loanRepository.findByIdAndUser(99L, testUser)).thenReturn(Optional.empty());
+        when(loanRepository.findById(99L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> loanService.getLoanById(99L, testUser))
                 .isInstanceOf(LoanNotFoundException.class)
                 .hasMessageContaining("99");
     }
 
+    @Test
+    @DisplayName("Should not expose another user's loan")
+    void getLoanById_OtherUsersLoan() {
+        User otherUser = User.builder().id(2L).name("Other").email("other@example.com").password("password").build();
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(testLoan));
+
+        assertThatThrownBy(() -> loanService.getLoanById(1L, otherUser))
+                .isInstanceOf(LoanNotFoundException.class);
+    }
+
     @Test
     @DisplayName("Should update loan successfully")
     void updateLoan_Success() {
@@ -121,24 +178,150 @@ class LoanServiceTest {
                 .status(Loan.LoanStatus.ACTIVE)
                 .build();
 
-        when(loanRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLoan));
         when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
 
         Loan result = loanService.updateLoan(1L, updatedDetails, testUser);
 
         assertThat(result).isNotNull();
         verify(loanRepository, times(1)).save(any(Loan.class));
+        // Loan row first, then the summary row, in the same order as payments
+        InOrder locks = inOrder(loanRepository, portfolioSummaryService);
+        locks.verify(loanRepository).findByIdForUpdate(1L);
+        locks.verify(portfolioSummaryService).onLoanChanged(eq(testUser), any(), any());
     }
 
     @Test
     @DisplayName("Should delete loan successfully")
     void deleteLoan_Success() {
-        when(loanRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLoan));
         doNothing().when(paymentHistoryRepository).deleteByLoanId(1L);
         doNothing().when(loanRepository).delete(testLoan);
 
         loanService.deleteLoan(1L, testUser);
 
         verify(loanRepository, times(1)).delete(testLoan);
+        InOrder locks = inOrder(loanRepository, portfolioSummaryService);
+        locks.verify(loanRepository).findByIdForUpdate(1L);
+        locks.verify(portfolioSummaryService).onLoanChanged(eq(testUser), any(), isNull());
+    }
+
+    @Test
+    @DisplayName("Should build dashboard stats from the portfolio summary")
+    void getDashboardStats_UsesPortfolioSummary() {
+        PortfolioSummary summary = PortfolioSummary.builder()
+                .userId(1L)
+                .activeLoans(2)
+                .closedLoans(1)
+                .totalLentOut(new BigDecimal("30000.00"))
+                .totalInterestReceived(new BigDecimal("600.00"))
+                .totalPrincipalReceived(new BigDecimal("5000.00"))
+                .monthlyLoans(2)
+                .build();
+
+        BorrowerTotal borrower = mock(BorrowerTotal.class);
+        when(borrower.getName()).thenReturn("Test Borrower");
+        when(borrower.getTotalAmount()).thenReturn(new BigDecimal("20000.00"));
+
+        when(portfolioSummaryService.getSummary(testUser)).thenReturn(summary);
+        when(portfolioSummaryService.getAverageInterestRate(summary)).thenReturn(new BigDecimal("7.50"));
+        when(portfolioSummaryService.getMonthlyInterestExpected(summary)).thenReturn(new BigDecimal("200.00"));
+        when(loanRepository.findTopBorrowers(eq(testUser), eq(Loan.LoanStatus.ACTIVE), any())).thenReturn(List.of(borrower));
+
+        Map<String, Object> stats = loanService.getDashboardStats(testUser);
+
+        assertThat(stats.get("totalLoans")).isEqualTo(3L);
+        assertThat(stats.get("activeLoans")).isEqualTo(2L);
+        assertThat(stats.get("closedLoans")).isEqualTo(1L);
+        assertThat(stats.get("totalLentOut")).isEqualTo(new BigDecimal("30000.00"));
+        assertThat(stats.get("averageInterestRate")).isEqualTo(7.5);
+        assertThat(stats.get("monthlyInterestExpected")).isEqualTo(new BigDecimal("200.00"));
+        assertThat(stats.get("loansByFrequency")).isEqualTo(Map.of("MONTHLY", 2L));
+        assertThat((List<?>) stats.get("topBorrowers")).hasSize(1);
+        verify(loanRepository, never()).findByUser(any());
+    }
+
+    @Test
+    @DisplayName("Should report loan changes to the portfolio summary")
+    void createLoan_UpdatesPortfolioSummary() {
+        when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
+
+        loanService.createLoan(testLoan, testUser);
+
+        verify(portfolioSummaryService).onLoanChanged(eq(testUser), isNull(), any());
+    }
+
+    @Test
+    @DisplayName("Should build filter counts from a single grouped query")
+    void getFilterCounts_SingleQuery() {
+        LoanFilterCount activeMonthly = mock(LoanFilterCount.class);
+        when(activeMonthly.getStatus()).thenReturn(Loan.LoanStatus.ACTIVE);
+        when(activeMonthly.getFrequency()).thenReturn(Loan.InterestFrequency.MONTHLY);
+        when(activeMonthly.getLoanCount()).thenReturn(3L);
+
+        LoanFilterCount closedMonthly = mock(LoanFilterCount.class);
+        when(closedMonthly.getStatus()).thenReturn(Loan.LoanStatus.CLOSED);
+        when(closedMonthly.getFrequency()).thenReturn(Loan.InterestFrequency.MONTHLY);
+        when(closedMonthly.getLoanCount()).thenReturn(2L);
+
+        when(loanRepository.countByStatusAndFrequency(testUser)).thenReturn(List.of(activeMonthly, closedMonthly));
+
+        Map<String, Object> counts = loanService.getFilterCounts(testUser);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> byStatus = (Map<String, Long>) counts.get("byStatus");
+        @SuppressWarnings("unchecked")
+        Map<String, Long> byFrequency = (Map<String, Long>) counts.get("byFrequency");
+        assertThat(byStatus).containsEntry("ACTIVE", 3L).containsEntry("CLOSED", 2L).containsEntry("DEFAULTED", 0L);
+        assertThat(byFrequency).containsEntry("MONTHLY", 5L).containsEntry("DAILY", 0L);
+        verify(loanRepository, never()).countByUserAndStatus(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should record the payment and the closure in the activity feed")
+    void recordPrincipalReceived_RecordsActivity() {
+        when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("10000.00"));
+        loanService.recordPrincipalReceived(1L, request, testUser);
+
+        verify(activityService).paymentRecorded(testUser, testLoan, PaymentHistory.PaymentType.PRINCIPAL, new BigDecimal("10000.00"));
+        verify(activityService).loanStatusChanged(testUser, testLoan, Loan.LoanStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("Should retry a payment that loses the optimistic lock in a fresh transaction")
+    void recordInterestReceived_RetriesOnConflict() {
+        when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.save(any(Loan.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Loan.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("100.00"));
+        Loan saved = loanService.recordInterestReceived(1L, request, testUser);
+
+        assertThat(saved).isSameAs(testLoan);
+        verify(loanRepository, times(2)).save(testLoan);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(activityService, times(1)).paymentRecorded(testUser, testLoan, PaymentHistory.PaymentType.INTEREST, new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("Should give up on a payment after repeated conflicts")
+    void recordInterestReceived_GivesUpAfterMaxAttempts() {
+        when(loanRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLoan));
+        when(loanRepository.save(any(Loan.class))).thenThrow(new ObjectOptimisticLockingFailureException(Loan.class, 1L));
+
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(new BigDecimal("100.00"));
+
+        assertThatThrownBy(() -> loanService.recordInterestReceived(1L, request, testUser))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(loanRepository, times(5)).save(testLoan);
+        verify(transactionManager, never()).commit(any());
     }
 }
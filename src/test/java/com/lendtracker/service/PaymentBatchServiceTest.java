@@ -0,0 +1,172 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.BatchPaymentRequest;
+import com.lendtracker.dto.BatchPaymentResult;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentBatchServiceTest {
+
+    private LoanRepository loanRepository;
+    private JdbcTemplate jdbcTemplate;
+    private PortfolioSummaryService portfolioSummaryService;
+    private ActivityService activityService;
+    private EmailService emailService;
+    private org.hibernate.Cache hibernateCache;
+    private PaymentBatchService batchService;
+    private User user;
+    private Loan asha;
+    private Loan ravi;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository = mock(LoanRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        portfolioSummaryService = mock(PortfolioSummaryService.class);
+        activityService = mock(ActivityService.class);
+        emailService = mock(EmailService.class);
+        hibernateCache = mock(org.hibernate.Cache.class);
+        Cache cache = mock(Cache.class);
+        when(cache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+
+        batchService = new PaymentBatchService(
+                loanRepository,
+                jdbcTemplate,
+                portfolioSummaryService,
+                mock(CashFlowForecastService.class),
+                activityService,
+                emailService,
+                mock(PlatformTransactionManager.class),
+                entityManagerFactory);
+
+        user = User.builder().id(1L).name("Lender").email("lender@example.com").password("password").build();
+        asha = loan(10L, "Asha", "5000.00");
+        ravi = loan(11L, "Ravi", "1000.00");
+    }
+
+    private Loan loan(Long id, String borrower, String principal) {
+        return Loan.builder()
+                .id(id)
+                .user(user)
+                .borrowerName(borrower)
+                .principalAmount(new BigDecimal(principal))
+                .interestRate(12.0)
+                .lendDate(LocalDate.now().minusMonths(2))
+                .build();
+    }
+
+    private static BatchPaymentRequest.Item item(Long loanId, String type, String amount) {
+        BatchPaymentRequest.Item item = new BatchPaymentRequest.Item();
+        item.setLoanId(loanId);
+        item.setType(type);
+        item.setAmount(amount != null ? new BigDecimal(amount) : null);
+        return item;
+    }
+
+    @Test
+    @DisplayName("Should load loans once, batch the history inserts and update each loan once")
+    @SuppressWarnings("unchecked")
+    void recordPayments_AppliesOncePerLoan() {
+        when(loanRepository.findByUserAndIdInForUpdate(eq(user), any())).thenReturn(List.of(asha, ravi));
+
+        BatchPaymentResult result = batchService.recordPayments(user, List.of(
+                item(10L, "interest", "50.00"),
+                item(11L, "PRINCIPAL", "400.00"),
+                item(10L, "INTEREST", "50.00"),
+                item(11L, "PRINCIPAL", "600.00")));
+
+        assertThat(result.getRecordedCount()).isEqualTo(4);
+        assertThat(result.getFailedCount()).isZero();
+        assertThat(result.getTotalInterest()).isEqualByComparingTo("100.00");
+        assertThat(result.getTotalPrincipal()).isEqualByComparingTo("1000.00");
+        assertThat(result.getLoans()).hasSize(2);
+
+        assertThat(asha.getTotalInterestReceived()).isEqualByComparingTo("100.00");
+        assertThat(ravi.getTotalPrincipalReceived()).isEqualByComparingTo("1000.00");
+        assertThat(ravi.getStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+        assertThat(asha.getStatus()).isEqualTo(Loan.LoanStatus.ACTIVE);
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(loanRepository, times(1)).findByUserAndIdInForUpdate(eq(user), ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(10L, 11L);
+
+        ArgumentCaptor<Collection<PaymentHistory>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture(), eq(4),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(new ArrayList<>(rows.getValue()))
+                .extracting(PaymentHistory::getPaymentType)
+                .containsExactly(PaymentHistory.PaymentType.INTEREST, PaymentHistory.PaymentType.PRINCIPAL,
+                        PaymentHistory.PaymentType.INTEREST, PaymentHistory.PaymentType.PRINCIPAL);
+
+        ArgumentCaptor<Collection<PortfolioSummaryService.LoanSnapshot>> before = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<PortfolioSummaryService.LoanSnapshot>> after = ArgumentCaptor.forClass(Collection.class);
+        verify(portfolioSummaryService, times(1)).onLoansChanged(eq(user), before.capture(), after.capture());
+        assertThat(before.getValue()).extracting(PortfolioSummaryService.LoanSnapshot::status)
+                .containsExactly(Loan.LoanStatus.ACTIVE, Loan.LoanStatus.ACTIVE);
+        assertThat(after.getValue()).extracting(PortfolioSummaryService.LoanSnapshot::status)
+                .containsExactly(Loan.LoanStatus.ACTIVE, Loan.LoanStatus.CLOSED);
+
+        verify(emailService, times(1)).sendLoanClosedEmail(eq("lender@example.com"), eq("Lender"), eq("Ravi"),
+                any(), any(), any());
+        verify(activityService).loanStatusChanged(user, ravi, Loan.LoanStatus.ACTIVE);
+        verify(activityService).paymentsRecorded(user, 4, new BigDecimal("1100.00"));
+        verify(hibernateCache).evictDefaultQueryRegion();
+    }
+
+    @Test
+    @DisplayName("Should reject bad items individually and record the rest")
+    void recordPayments_ReportsRejectedItems() {
+        when(loanRepository.findByUserAndIdInForUpdate(eq(user), eq(Set.of(10L, 99L)))).thenReturn(List.of(asha));
+
+        BatchPaymentResult result = batchService.recordPayments(user, List.of(
+                item(10L, "INTEREST", "75.00"),
+                item(99L, "INTEREST", "75.00"),
+                item(10L, "FEES", "75.00"),
+                item(10L, "PRINCIPAL", "0"),
+                item(null, "INTEREST", "75.00")));
+
+        assertThat(result.getTotalCount()).isEqualTo(5);
+        assertThat(result.getRecordedCount()).isEqualTo(1);
+        assertThat(result.getFailedCount()).isEqualTo(4);
+        assertThat(result.getResults()).extracting(BatchPaymentResult.ItemResult::isRecorded)
+                .containsExactly(true, false, false, false, false);
+        assertThat(result.getResults().get(1).getMessage()).contains("Loan not found");
+        assertThat(result.getResults().get(2).getMessage()).contains("INTEREST or PRINCIPAL");
+        assertThat(result.getResults().get(3).getMessage()).contains("greater than 0");
+        assertThat(asha.getTotalInterestReceived()).isEqualByComparingTo("75.00");
+        assertThat(asha.getTotalPrincipalReceived()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("Should write nothing when no item is valid")
+    void recordPayments_NothingValid() {
+        BatchPaymentResult result = batchService.recordPayments(user, List.of(item(null, "INTEREST", "10.00")));
+
+        assertThat(result.getRecordedCount()).isZero();
+        verifyNoInteractions(loanRepository, jdbcTemplate, portfolioSummaryService, activityService, hibernateCache);
+    }
+}
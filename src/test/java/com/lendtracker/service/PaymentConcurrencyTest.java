@@ -0,0 +1,186 @@
+package com.lendtracker.service;
+
+import com.lendtracker.dto.PaymentRequest;
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PaymentHistory;
+import com.lendtracker.entity.PortfolioSummary;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.PaymentHistoryRepository;
+import com.lendtracker.repository.PortfolioSummaryRepository;
+import com.lendtracker.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Many threads paying into the same few loans at once. Every payment runs in
+ * its own committed transaction, so the fixtures are committed too and
+ * removed again afterwards. The throughput of the run is logged as
+ * payments per second.
+ */
+@Slf4j
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int PAYMENTS_PER_THREAD = 50;
+    private static final int LOANS = 2;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentHistoryRepository paymentHistoryRepository;
+
+    @Autowired
+    private PortfolioSummaryRepository summaryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PortfolioSummaryService portfolioSummaryService;
+    private LoanService loanService;
+    private User owner;
+    private final List<Loan> loans = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        portfolioSummaryService = new PortfolioSummaryService(summaryRepository, loanRepository, userRepository,
+                transactionManager);
+        loanService = new LoanService(loanRepository, paymentHistoryRepository, mock(EmailService.class),
+                portfolioSummaryService, mock(BorrowerSearchIndex.class), mock(CashFlowForecastService.class),
+                mock(ActivityService.class), transactionManager);
+
+        owner = userRepository.save(User.builder()
+                .name("Busy Lender").email("busy-lender@example.com").password("password").build());
+        for (int i = 0; i < LOANS; i++) {
+            loans.add(loanRepository.save(Loan.builder()
+                    .user(owner)
+                    .borrowerName("Borrower " + i)
+                    .principalAmount(new BigDecimal("1000000.00"))
+                    .interestRate(12.0)
+                    .lendDate(LocalDate.now().minusMonths(3))
+                    .build()));
+        }
+        // Create the summary row up front so the payments only ever update it
+        summaryRepository.save(portfolioSummaryService.rebuild(owner));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Loan loan : loans) {
+            paymentHistoryRepository.deleteAll(paymentHistoryRepository.findAllByLoanId(loan.getId()));
+        }
+        // By id, as the fixtures' versions are stale after the payments
+        loans.forEach(loan -> loanRepository.deleteById(loan.getId()));
+        summaryRepository.deleteById(owner.getId());
+        userRepository.delete(owner);
+    }
+
+    @Test
+    @DisplayName("Should keep loan totals equal to the payment history under concurrent payments")
+    void concurrentPayments_TotalsMatchHistory() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PAYMENTS_PER_THREAD; i++) {
+                    Long loanId = loans.get((thread + i) % LOANS).getId();
+                    PaymentRequest request = new PaymentRequest();
+                    request.setAmount(new BigDecimal("1.25"));
+                    try {
+                        if (i % 2 == 0) {
+                            loanService.recordInterestReceived(loanId, request, owner);
+                        } else {
+                            loanService.recordPrincipalReceived(loanId, request, owner);
+                        }
+                        recorded.incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        conflicts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        long elapsedNanos = System.nanoTime() - startedAt;
+        double paymentsPerSecond = recorded.get() * 1e9 / elapsedNanos;
+        log.info("Recorded {} payments on {} loans from {} threads in {} ms ({} payments/s)",
+                recorded.get(), LOANS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", paymentsPerSecond));
+
+        // Payments to one loan queue on its row lock, so none should run out of retries
+        assertThat(errors).isEmpty();
+        assertThat(conflicts.get()).as("payments that gave up after retries").isZero();
+        assertThat(recorded.get()).isEqualTo(THREADS * PAYMENTS_PER_THREAD);
+        assertThat(paymentsPerSecond).isPositive();
+
+        BigDecimal interestTotal = BigDecimal.ZERO;
+        BigDecimal principalTotal = BigDecimal.ZERO;
+        int historyRows = 0;
+        for (Loan loan : loans) {
+            Loan stored = loanRepository.findById(loan.getId()).orElseThrow();
+            List<PaymentHistory> history = paymentHistoryRepository.findAllByLoanId(loan.getId());
+            BigDecimal interest = sum(history, PaymentHistory.PaymentType.INTEREST);
+            BigDecimal principal = sum(history, PaymentHistory.PaymentType.PRINCIPAL);
+
+            assertThat(stored.getTotalInterestReceived()).isEqualByComparingTo(interest);
+            assertThat(stored.getTotalPrincipalReceived()).isEqualByComparingTo(principal);
+            interestTotal = interestTotal.add(interest);
+            principalTotal = principalTotal.add(principal);
+            historyRows += history.size();
+        }
+        assertThat(historyRows).isEqualTo(recorded.get());
+
+        // The incrementally maintained summary saw every committed payment exactly once
+        PortfolioSummary summary = summaryRepository.findById(owner.getId()).orElseThrow();
+        assertThat(summary.getTotalInterestReceived()).isEqualByComparingTo(interestTotal);
+        assertThat(summary.getTotalPrincipalReceived()).isEqualByComparingTo(principalTotal);
+    }
+
+    private static BigDecimal sum(List<PaymentHistory> history, PaymentHistory.PaymentType type) {
+        return history.stream()
+                .filter(payment -> payment.getPaymentType() == type)
+                .map(PaymentHistory::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
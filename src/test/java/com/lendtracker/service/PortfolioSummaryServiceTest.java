@@ -0,0 +1,123 @@
+package com.lendtracker.service;
+
+import com.lendtracker.entity.Loan;
+import com.lendtracker.entity.PortfolioSummary;
+import com.lendtracker.entity.User;
+import com.lendtracker.repository.LoanRepository;
+import com.lendtracker.repository.PortfolioSummaryRepository;
+import com.lendtracker.repository.UserRepository;
+import com.lendtracker.service.PortfolioSummaryService.LoanSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioSummaryServiceTest {
+
+    @Mock
+    private PortfolioSummaryRepository summaryRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PortfolioSummaryService portfolioSummaryService;
+
+    private User testUser;
+    private PortfolioSummary summary;
+
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder().id(1L).name("Test User").email("test@example.com").password("password").build();
+        summary = PortfolioSummary.builder().userId(1L).build();
+        lenient().when(summaryRepository.findByUserIdForUpdate(1L)).thenReturn(Optional.of(summary));
+    }
+
+    private LoanSnapshot snapshot(Loan.LoanStatus status, String principal, String principalReceived) {
+        return new LoanSnapshot(status, Loan.InterestFrequency.MONTHLY, new BigDecimal(principal), 12.0,
+                BigDecimal.ZERO, new BigDecimal(principalReceived));
+    }
+
+    @Test
+    @DisplayName("Should add a new loan's contribution")
+    void onLoanChanged_Create() {
+        portfolioSummaryService.onLoanChanged(testUser, null, snapshot(Loan.LoanStatus.ACTIVE, "10000.00", "0"));
+
+        assertThat(summary.getActiveLoans()).isEqualTo(1);
+        assertThat(summary.getMonthlyLoans()).isEqualTo(1);
+        assertThat(summary.getTotalLentOut()).isEqualByComparingTo("10000.00");
+        assertThat(portfolioSummaryService.getMonthlyInterestExpected(summary)).isEqualByComparingTo("100.00");
+        assertThat(portfolioSummaryService.getAverageInterestRate(summary)).isEqualByComparingTo("12.00");
+        verify(summaryRepository).save(summary);
+    }
+
+    @Test
+    @DisplayName("Should move a closed loan out of the active totals")
+    void onLoanChanged_Close() {
+        LoanSnapshot active = snapshot(Loan.LoanStatus.ACTIVE, "10000.00", "0");
+        portfolioSummaryService.onLoanChanged(testUser, null, active);
+
+        portfolioSummaryService.onLoanChanged(testUser, active, snapshot(Loan.LoanStatus.CLOSED, "10000.00", "10000.00"));
+
+        assertThat(summary.getActiveLoans()).isZero();
+        assertThat(summary.getClosedLoans()).isEqualTo(1);
+        assertThat(summary.getMonthlyLoans()).isZero();
+        assertThat(summary.getTotalLentOut()).isEqualByComparingTo("0");
+        assertThat(summary.getTotalPrincipalReceived()).isEqualByComparingTo("10000.00");
+        assertThat(portfolioSummaryService.getMonthlyInterestExpected(summary)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("Should create a missing summary under the user lock")
+    void onLoanChanged_CreatesMissingSummary() {
+        when(summaryRepository.findByUserIdForUpdate(1L)).thenReturn(Optional.empty());
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testUser));
+
+        portfolioSummaryService.onLoanChanged(testUser, null, snapshot(Loan.LoanStatus.ACTIVE, "10000.00", "0"));
+
+        verify(userRepository).findByIdForUpdate(1L);
+        verify(summaryRepository).save(argThat(saved -> saved.getUserId().equals(1L)));
+        assertThat(summary.getActiveLoans()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should apply the change to a summary created by a concurrent first write")
+    void onLoanChanged_SummaryCreatedConcurrently() {
+        when(summaryRepository.findByUserIdForUpdate(1L))
+                .thenReturn(Optional.empty(), Optional.of(summary));
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testUser));
+
+        portfolioSummaryService.onLoanChanged(testUser, null, snapshot(Loan.LoanStatus.ACTIVE, "10000.00", "0"));
+
+        assertThat(summary.getActiveLoans()).isEqualTo(1);
+        verify(summaryRepository).save(summary);
+    }
+
+    @Test
+    @DisplayName("Should not store a summary from the dashboard read")
+    void getSummary_MissingRowIsNotSaved() {
+        when(summaryRepository.findById(1L)).thenReturn(Optional.empty());
+
+        PortfolioSummary result = portfolioSummaryService.getSummary(testUser);
+
+        assertThat(result.getUserId()).isEqualTo(1L);
+        verify(summaryRepository, never()).save(any());
+    }
+}